@@ -0,0 +1,31 @@
+package com.project.libraryapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs JMH writing the results as JSON to {@value #DEFAULT_RESULT_FILE}, so runs
+ * can be archived and compared across releases. Passing {@code -rf}/{@code -rff}
+ * overrides the format and file as usual.
+ */
+public final class BenchmarkMain {
+
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(Arrays.asList("-rf", "json"));
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.addAll(Arrays.asList("-rff", DEFAULT_RESULT_FILE));
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
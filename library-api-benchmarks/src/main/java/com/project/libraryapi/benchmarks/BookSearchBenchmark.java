@@ -0,0 +1,102 @@
+package com.project.libraryapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.services.BookService;
+
+import org.hibernate.search.jpa.Search;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs {@code BookServiceImpl.find} the way {@code GET /api/books} does, with and
+ * without a filter, against H2 seeded with {@code books} rows. Each call runs in
+ * a read-only transaction, standing in for the session the web layer keeps open.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    int books;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    TransactionTemplate readOnly;
+    PageRequest pageRequest = PageRequest.of(0, 20);
+    Book titleFilter;
+    Book authorAndIsbnFilter;
+    Book noFilter = new Book();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = LibraryApiContext.start("books" + books);
+        bookService = context.getBean(BookService.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into book (id, title, author, isbn, version) values (?, ?, ?, ?, 0)", new SeedRows(books) {
+                    @Override
+                    Object[] row(int i) {
+                        return new Object[] { (long) i + 1, "The legend " + i, "Author " + (i % 500),
+                                String.format("978%010d", i) };
+                    }
+                }.rows());
+
+        EntityManager entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        try {
+            Search.getFullTextEntityManager(entityManager).createIndexer(Book.class).startAndWait();
+        } finally {
+            entityManager.close();
+        }
+
+        titleFilter = Book.builder().title("legend " + (books / 2)).build();
+        authorAndIsbnFilter = Book.builder().author("author 42").isbn("978").build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findAll() {
+        return readOnly.execute(status -> bookService.find(noFilter, pageRequest));
+    }
+
+    @Benchmark
+    public Page<Book> findByTitle() {
+        return readOnly.execute(status -> bookService.find(titleFilter, pageRequest));
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthorAndIsbn() {
+        return readOnly.execute(status -> bookService.find(authorAndIsbnFilter, pageRequest));
+    }
+}
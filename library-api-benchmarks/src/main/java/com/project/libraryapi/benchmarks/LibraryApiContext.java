@@ -0,0 +1,27 @@
+package com.project.libraryapi.benchmarks;
+
+import com.project.libraryapi.LibraryApiApplication;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application without the web server, against a private in-memory H2
+ * database and an in-memory search index, so each benchmark trial owns its data.
+ */
+final class LibraryApiContext {
+
+    private LibraryApiContext() {
+    }
+
+    static ConfigurableApplicationContext start(String database) {
+        // passed as arguments so they win over application.properties
+        return new SpringApplicationBuilder(LibraryApiApplication.class).web(WebApplicationType.NONE).run(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.search.default.directory_provider=local-heap",
+                "--application.search.reindex-on-startup=false", "--spring.boot.admin.client.enabled=false",
+                "--application.mail.outbox.poll-interval-ms=3600000", "--logging.file.name=",
+                "--logging.level.root=WARN", "--spring.main.banner-mode=off");
+    }
+}
@@ -0,0 +1,91 @@
+package com.project.libraryapi.benchmarks;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.services.LoanService;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Checks out a random book and returns it from several threads at once.
+ * {@code books} controls the contention: with one book every thread competes
+ * for the same availability row. The {@code loaned} and {@code rejected}
+ * counters split the attempts by outcome.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoanCheckoutBenchmark {
+
+    @Param({ "1", "64" })
+    int books;
+
+    ConfigurableApplicationContext context;
+    LoanService loanService;
+    List<Book> savedBooks;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long loaned;
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = LibraryApiContext.start("loans" + books);
+        loanService = context.getBean(LoanService.class);
+
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        for (int i = 0; i < books; i++) {
+            bookRepository.save(Book.builder().title("The legend " + i).author("Test").isbn("isbn-" + i).build());
+        }
+        savedBooks = bookRepository.findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void checkoutAndReturn(Outcomes outcomes) {
+        Book book = savedBooks.get(ThreadLocalRandom.current().nextInt(savedBooks.size()));
+        Loan loan;
+        try {
+            loan = loanService.save(Loan.builder().book(book).customer("customer").customerEmail("customer@email.com")
+                    .loanDate(LocalDate.now()).build());
+        } catch (BusinessException ex) {
+            outcomes.rejected++;
+            return;
+        }
+        outcomes.loaned++;
+        loanService.returnLoan(loan);
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.libraryapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the batch arguments used to seed a table through {@code JdbcTemplate}.
+ */
+abstract class SeedRows {
+
+    private final int count;
+
+    SeedRows(int count) {
+        this.count = count;
+    }
+
+    abstract Object[] row(int i);
+
+    List<Object[]> rows() {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(row(i));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.libraryapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.api.dtos.PageDTO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serializes the pages returned by {@code GET /api/books} and {@code GET /api/loans}
+ * with an object mapper built like the one Spring Boot configures, in each negotiable encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "20", "100" })
+    int pageSize;
+
+    @Param({ "json", "cbor", "smile" })
+    String format;
+
+    ObjectMapper objectMapper;
+    PageDTO<BookDTO> bookPage;
+    PageDTO<LoanDTO> loanPage;
+
+    @Setup
+    public void setUp() {
+        if ("cbor".equals(format)) {
+            objectMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        } else if ("smile".equals(format)) {
+            objectMapper = Jackson2ObjectMapperBuilder.smile().build();
+        } else {
+            objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+
+        List<BookDTO> books = new ArrayList<>();
+        List<LoanDTO> loans = new ArrayList<>();
+        for (long i = 0; i < pageSize; i++) {
+            BookDTO book = BookDTO.builder().id(i).title("The legend " + i).author("Author " + i).isbn("isbn-" + i)
+                    .build();
+            books.add(book);
+            loans.add(LoanDTO.builder().id(i).isbn(book.getIsbn()).customer("customer " + i)
+                    .customerEmail("customer" + i + "@email.com").book(book).build());
+        }
+        PageRequest pageRequest = PageRequest.of(3, pageSize);
+        bookPage = PageDTO.of(new PageImpl<>(books, pageRequest, 10_000));
+        loanPage = PageDTO.of(new PageImpl<>(loans, pageRequest, 10_000));
+    }
+
+    @Benchmark
+    public byte[] bookPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookPage);
+    }
+
+    @Benchmark
+    public byte[] loanPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loanPage);
+    }
+}
@@ -0,0 +1,172 @@
+package com.project.libraryapi.loadtest;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency distributions of a run, per operation and in total.
+ *
+ * <p>Latency is measured from the moment a request was scheduled to start, so time
+ * spent waiting behind slow requests is counted (coordinated omission correction).
+ * Service time is measured from the moment it was actually sent, which is what a
+ * closed-loop client would report; the gap between the two shows queueing.
+ */
+class LatencyReport {
+
+    static final String TOTAL = "TOTAL";
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final double[] PERCENTILES = { 50, 95, 99, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p95", "p99", "p999" };
+
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private long elapsedNanos;
+
+    LatencyReport() {
+        stats.put(TOTAL, new Stats());
+        for (Operation operation : Operation.values()) {
+            stats.put(operation.name(), new Stats());
+        }
+    }
+
+    void record(Operation operation, Outcome outcome, long latencyNanos, long serviceNanos) {
+        stats.get(TOTAL).record(outcome, latencyNanos, serviceNanos);
+        stats.get(operation.name()).record(outcome, latencyNanos, serviceNanos);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    void print(PrintStream out) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%nMeasured %.1f s%n", seconds);
+        out.printf("%-10s %9s %9s %9s %9s %9s %9s | %-38s | %-38s%n", "", "requests", "ok", "rejected", "errors",
+                "timeouts", "req/s", "latency ms  p50 / p95 / p99 / p99.9 / max",
+                "service ms  p50 / p95 / p99 / p99.9 / max");
+        stats.forEach((name, stat) -> {
+            if (stat.requests() == 0) {
+                return;
+            }
+            out.printf("%-10s %9d %9d %9d %9d %9d %9.1f | %-38s | %-38s%n", name, stat.requests(),
+                    stat.count(Outcome.OK), stat.count(Outcome.REJECTED), stat.count(Outcome.ERROR),
+                    stat.count(Outcome.TIMEOUT), stat.requests() / seconds, summary(stat.latency),
+                    summary(stat.service));
+        });
+    }
+
+    ObjectNode toJson(LoadTestOptions options, ObjectMapper objectMapper) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode settings = root.putObject("options");
+        settings.put("rate", options.getRate());
+        settings.put("warmupSeconds", options.getWarmupSeconds());
+        settings.put("durationSeconds", options.getDurationSeconds());
+        settings.put("connections", options.getConnections());
+        settings.put("books", options.getBooks());
+        options.getMix().forEach((operation, weight) -> settings.with("mix").put(operation.name(), weight));
+        options.getAppProperties().forEach((name, value) -> settings.with("app").put(name, value));
+        root.put("elapsedSeconds", elapsedNanos / 1e9);
+
+        ObjectNode operations = root.putObject("operations");
+        stats.forEach((name, stat) -> {
+            if (stat.requests() == 0) {
+                return;
+            }
+            ObjectNode node = operations.putObject(name);
+            node.put("requests", stat.requests());
+            for (Outcome outcome : Outcome.values()) {
+                node.put(outcome.name().toLowerCase(), stat.count(outcome));
+            }
+            node.put("throughput", stat.requests() / (elapsedNanos / 1e9));
+            percentiles(node.putObject("latencyMs"), stat.latency);
+            percentiles(node.putObject("serviceTimeMs"), stat.service);
+        });
+        return root;
+    }
+
+    /**
+     * Prints throughput and corrected latency next to a previous result.
+     */
+    static void compare(JsonNode current, JsonNode baseline, PrintStream out) {
+        out.printf("%nCompared with the baseline (latency ms, %% change)%n");
+        out.printf("%-10s %-22s %-22s %-22s %-22s%n", "", "req/s", "p50", "p99", "p99.9");
+        current.path("operations").fields().forEachRemaining(entry -> {
+            JsonNode before = baseline.path("operations").path(entry.getKey());
+            if (before.isMissingNode()) {
+                return;
+            }
+            JsonNode after = entry.getValue();
+            out.printf("%-10s %-22s %-22s %-22s %-22s%n", entry.getKey(),
+                    change(before.path("throughput"), after.path("throughput")),
+                    change(before.path("latencyMs").path("p50"), after.path("latencyMs").path("p50")),
+                    change(before.path("latencyMs").path("p99"), after.path("latencyMs").path("p99")),
+                    change(before.path("latencyMs").path("p999"), after.path("latencyMs").path("p999")));
+        });
+    }
+
+    private static String change(JsonNode before, JsonNode after) {
+        double from = before.asDouble();
+        double to = after.asDouble();
+        if (from == 0) {
+            return String.format("%.2f -> %.2f", from, to);
+        }
+        return String.format("%.2f -> %.2f (%+.0f%%)", from, to, (to - from) * 100 / from);
+    }
+
+    private static String summary(Histogram histogram) {
+        StringBuilder summary = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            summary.append(String.format("%.1f / ", millis(histogram.getValueAtPercentile(percentile))));
+        }
+        return summary.append(String.format("%.1f", millis(histogram.getMaxValue()))).toString();
+    }
+
+    private static void percentiles(ObjectNode node, Histogram histogram) {
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            node.put(PERCENTILE_NAMES[i], millis(histogram.getValueAtPercentile(PERCENTILES[i])));
+        }
+        node.put("max", millis(histogram.getMaxValue()));
+        node.put("mean", histogram.getMean() / 1000);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000d;
+    }
+
+    private static class Stats {
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+
+        private Stats() {
+            for (Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, new LongAdder());
+            }
+        }
+
+        private void record(Outcome outcome, long latencyNanos, long serviceNanos) {
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            service.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(serviceNanos), HIGHEST_TRACKABLE_MICROS));
+            outcomes.get(outcome).increment();
+        }
+
+        private long count(Outcome outcome) {
+            return outcomes.get(outcome).sum();
+        }
+
+        private long requests() {
+            return latency.getTotalCount();
+        }
+    }
+}
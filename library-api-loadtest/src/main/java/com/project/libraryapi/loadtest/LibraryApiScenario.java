@@ -0,0 +1,183 @@
+package com.project.libraryapi.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.LoanFilterDTO;
+import com.project.libraryapi.api.dtos.ReturnedLoanDTO;
+import com.project.libraryapi.services.BookImportService;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Issues the requests of each {@link Operation} against one library-api.
+ * Checkouts remember the loans they open so returns have something to close.
+ */
+class LibraryApiScenario implements AutoCloseable {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final String baseUrl;
+    private final CloseableHttpClient httpClient;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<BookDTO> books = new ArrayList<>();
+    private final Queue<Long> openLoans = new ConcurrentLinkedQueue<>();
+
+    LibraryApiScenario(String baseUrl, int connections, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClients.custom().setMaxConnTotal(connections).setMaxConnPerRoute(connections)
+                .disableAutomaticRetries().build();
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout(5000);
+        requestFactory.setReadTimeout(60000);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+
+            @Override
+            public void handleError(ClientHttpResponse response) {
+            }
+        });
+    }
+
+    /**
+     * Imports {@code count} books in one request, writing them to the connection as
+     * they are serialized instead of building the whole body first.
+     */
+    void seed(int count) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setBufferRequestBody(false);
+        RestTemplate streamingTemplate = new RestTemplate(requestFactory);
+        streamingTemplate.setErrorHandler(restTemplate.getErrorHandler());
+
+        HttpStatus status = streamingTemplate.execute(baseUrl + "/api/books/import", HttpMethod.POST, request -> {
+            request.getHeaders().setContentType(MediaType.parseMediaType(BookImportService.NDJSON));
+            ((StreamingHttpOutputMessage) request).setBody(body -> {
+                for (int i = 0; i < count; i++) {
+                    body.write(objectMapper.writeValueAsBytes(BookDTO.builder().title("The legend " + i)
+                            .author("Author " + (i % 500)).isbn(String.format("978%010d", i)).build()));
+                    body.write('\n');
+                }
+            });
+        }, ClientHttpResponse::getStatusCode);
+        if (status == null || !status.is2xxSuccessful()) {
+            throw new IllegalStateException("Book import failed with " + status);
+        }
+    }
+
+    void loadBooks() {
+        int page = 0;
+        JsonNode body;
+        do {
+            body = readTree(restTemplate.getForObject(baseUrl + "/api/books?page={page}&size=1000&sort=id",
+                    String.class, page++));
+            for (JsonNode book : body.path("content")) {
+                books.add(BookDTO.builder().id(book.path("id").asLong()).isbn(book.path("isbn").asText())
+                        .title(book.path("title").asText()).build());
+            }
+        } while (page < body.path("totalPages").asInt());
+        if (books.isEmpty()) {
+            throw new IllegalStateException("The target has no books to load test with");
+        }
+    }
+
+    int bookCount() {
+        return books.size();
+    }
+
+    Outcome execute(Operation operation) {
+        switch (operation) {
+        case SEARCH:
+            return search();
+        case CHECKOUT:
+            return checkout();
+        case RETURN:
+            return returnLoan();
+        case HISTORY:
+            return history();
+        default:
+            throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private Outcome search() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ResponseEntity<String> response;
+        if (random.nextInt(5) == 0) {
+            response = restTemplate.getForEntity(baseUrl + "/api/books?page={page}&size={size}", String.class,
+                    random.nextInt(10), PAGE_SIZE);
+        } else {
+            response = restTemplate.getForEntity(baseUrl + "/api/books?title={title}&page=0&size={size}",
+                    String.class, randomBook().getTitle(), PAGE_SIZE);
+        }
+        return Outcome.of(response.getStatusCodeValue());
+    }
+
+    private Outcome checkout() {
+        LoanFilterDTO loan = LoanFilterDTO.builder().isbn(randomBook().getIsbn())
+                .customer("customer-" + ThreadLocalRandom.current().nextInt(1000)).build();
+        // read as text: a rejected checkout answers with an error body, not an id
+        ResponseEntity<String> response = restTemplate.postForEntity(baseUrl + "/api/loans", loan, String.class);
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            openLoans.add(Long.valueOf(response.getBody().trim()));
+        }
+        return Outcome.of(response.getStatusCodeValue());
+    }
+
+    private Outcome returnLoan() {
+        Long id = openLoans.poll();
+        if (id == null) {
+            // nothing to return yet: open a loan instead so the mix keeps its rate
+            return checkout();
+        }
+        ResponseEntity<Void> response = restTemplate.exchange(baseUrl + "/api/loans/{id}", HttpMethod.PATCH,
+                new HttpEntity<>(ReturnedLoanDTO.builder().returned(true).build()), Void.class, id);
+        return Outcome.of(response.getStatusCodeValue());
+    }
+
+    private Outcome history() {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                baseUrl + "/api/books/{id}/loans?page=0&size={size}", String.class, randomBook().getId(), PAGE_SIZE);
+        return Outcome.of(response.getStatusCodeValue());
+    }
+
+    private BookDTO randomBook() {
+        return books.get(ThreadLocalRandom.current().nextInt(books.size()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unexpected response " + json, ex);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.project.libraryapi.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Open-model load: requests are started on a fixed schedule, {@code rate} per
+ * second, whether or not earlier ones have finished. When the server falls behind
+ * requests queue for a client thread and the wait shows up in their latency,
+ * instead of silently lowering the offered load.
+ */
+@Slf4j
+class LoadGenerator {
+
+    private final LibraryApiScenario scenario;
+    private final LoadTestOptions options;
+    private final Operation[] weightedOperations;
+
+    LoadGenerator(LibraryApiScenario scenario, LoadTestOptions options) {
+        this.scenario = scenario;
+        this.options = options;
+        List<Operation> operations = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> weight : options.getMix().entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                operations.add(weight.getKey());
+            }
+        }
+        this.weightedOperations = operations.toArray(new Operation[0]);
+    }
+
+    LatencyReport run() throws InterruptedException {
+        LatencyReport report = new LatencyReport();
+        AtomicLong lastCompletion = new AtomicLong();
+        // measured requests not recorded yet, by schedule index; whoever removes one records it
+        Map<Long, Request> pending = new ConcurrentHashMap<>();
+        ExecutorService clients = Executors.newFixedThreadPool(options.getConnections());
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+        for (long i = 0;; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+            Long index = i;
+            Request request = new Request(operation, intended);
+            if (intended >= measureFrom) {
+                pending.put(index, request);
+            }
+            clients.execute(() -> {
+                request.sent = System.nanoTime();
+                Outcome outcome = execute(operation);
+                long done = System.nanoTime();
+                if (pending.remove(index) != null) {
+                    report.record(operation, outcome, done - intended, done - request.sent);
+                    lastCompletion.accumulateAndGet(done, Math::max);
+                }
+            });
+        }
+
+        clients.shutdown();
+        if (!clients.awaitTermination(2, TimeUnit.MINUTES)) {
+            clients.shutdownNow();
+            long now = System.nanoTime();
+            int timeouts = 0;
+            for (Long index : pending.keySet()) {
+                Request request = pending.remove(index);
+                if (request != null) {
+                    long sent = request.sent;
+                    report.record(request.operation, Outcome.TIMEOUT, now - request.intended,
+                            sent == 0 ? 0 : now - sent);
+                    timeouts++;
+                }
+            }
+            lastCompletion.accumulateAndGet(now, Math::max);
+            log.warn("{} requests still queued or running after the schedule ended were recorded as timeouts",
+                    timeouts);
+        }
+        report.setElapsedNanos(Math.max(lastCompletion.get(), end) - measureFrom);
+        return report;
+    }
+
+    private Outcome execute(Operation operation) {
+        try {
+            return scenario.execute(operation);
+        } catch (RuntimeException ex) {
+            log.debug("{} failed", operation, ex);
+            return Outcome.ERROR;
+        }
+    }
+
+    private static class Request {
+
+        private final Operation operation;
+        private final long intended;
+        // 0 until a client thread takes the request
+        private volatile long sent;
+
+        private Request(Operation operation, long intended) {
+            this.operation = operation;
+            this.intended = intended;
+        }
+    }
+}
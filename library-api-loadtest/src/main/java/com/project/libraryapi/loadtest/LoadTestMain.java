@@ -0,0 +1,57 @@
+package com.project.libraryapi.loadtest;
+
+import java.io.File;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Drives a mix of book searches, checkouts, returns and loan history requests at
+ * a fixed rate and reports throughput and latency percentiles. Without
+ * {@code --target} the application is started locally with {@code --books}
+ * seeded books.
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.getTarget();
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            context = LocalLibraryApi.start(options.getAppProperties());
+            baseUrl = LocalLibraryApi.baseUrl(context);
+        }
+
+        try (LibraryApiScenario scenario = new LibraryApiScenario(baseUrl, options.getConnections(), objectMapper)) {
+            if (context != null) {
+                scenario.seed(options.getBooks());
+            }
+            scenario.loadBooks();
+            System.out.printf("Driving %s with %d books at %d req/s: %d s warmup, %d s measured, mix %s%n", baseUrl,
+                    scenario.bookCount(), options.getRate(), options.getWarmupSeconds(),
+                    options.getDurationSeconds(), options.getMix());
+
+            LatencyReport report = new LoadGenerator(scenario, options).run();
+            report.print(System.out);
+
+            JsonNode result = report.toJson(options, objectMapper);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(options.getOutput()), result);
+            System.out.printf("%nResult saved to %s%n", options.getOutput());
+
+            if (options.getBaseline() != null) {
+                LatencyReport.compare(result, objectMapper.readTree(new File(options.getBaseline())), System.out);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.project.libraryapi.loadtest;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Command line options, given as {@code --name=value}.
+ */
+@Data
+class LoadTestOptions {
+
+    /** Base url of a running library-api; when empty the application is started locally. */
+    private String target;
+    /** Requests started per second, regardless of how fast the server answers. */
+    private int rate = 100;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    /** Client threads; requests wait for a free one, and that wait counts as latency. */
+    private int connections = 32;
+    /** Books seeded in the local application. */
+    private int books = 1000;
+    private Map<Operation, Integer> mix = parseMix("search=60,checkout=15,return=15,history=10");
+    private String output = "loadtest-result.json";
+    /** Result of a previous run to compare against. */
+    private String baseline;
+    /** Properties of the local application, given as {@code --app.name=value}. */
+    private Map<String, String> appProperties = new LinkedHashMap<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.startsWith("app.")) {
+                options.getAppProperties().put(name.substring("app.".length()), value);
+                continue;
+            }
+            switch (name) {
+            case "target":
+                options.setTarget(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+                break;
+            case "rate":
+                options.setRate(Integer.parseInt(value));
+                break;
+            case "warmup":
+                options.setWarmupSeconds(Integer.parseInt(value));
+                break;
+            case "duration":
+                options.setDurationSeconds(Integer.parseInt(value));
+                break;
+            case "connections":
+                options.setConnections(Integer.parseInt(value));
+                break;
+            case "books":
+                options.setBooks(Integer.parseInt(value));
+                break;
+            case "mix":
+                options.setMix(parseMix(value));
+                break;
+            case "output":
+                options.setOutput(value);
+                break;
+            case "baseline":
+                options.setBaseline(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.getRate() <= 0 || options.getDurationSeconds() <= 0 || options.getConnections() <= 0) {
+            throw new IllegalArgumentException("rate, duration and connections must be positive");
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] weight = entry.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in the mix but got " + entry);
+            }
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The mix must have a positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,37 @@
+package com.project.libraryapi.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.project.libraryapi.LibraryApiApplication;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application on a random port against an in-memory H2 database and
+ * search index, so every run begins from the same seeded state.
+ */
+final class LocalLibraryApi {
+
+    private LocalLibraryApi() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, String> properties) {
+        // passed as arguments so they win over application.properties
+        List<String> args = new ArrayList<>(Arrays.asList("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.search.default.directory_provider=local-heap",
+                "--application.search.reindex-on-startup=false", "--spring.boot.admin.client.enabled=false",
+                "--application.mail.outbox.poll-interval-ms=3600000", "--logging.file.name=",
+                "--logging.level.root=WARN", "--spring.main.banner-mode=off"));
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return new SpringApplicationBuilder(LibraryApiApplication.class).run(args.toArray(new String[0]));
+    }
+
+    static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+}
@@ -0,0 +1,16 @@
+package com.project.libraryapi.loadtest;
+
+/**
+ * Requests of the load mix.
+ */
+enum Operation {
+
+    /** {@code GET /api/books}, filtered by title most of the time. */
+    SEARCH,
+    /** {@code POST /api/loans} for a random book. */
+    CHECKOUT,
+    /** {@code PATCH /api/loans/{id}} returning a loan opened by a previous checkout. */
+    RETURN,
+    /** {@code GET /api/books/{id}/loans}. */
+    HISTORY
+}
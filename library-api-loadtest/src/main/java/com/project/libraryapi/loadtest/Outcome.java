@@ -0,0 +1,18 @@
+package com.project.libraryapi.loadtest;
+
+/**
+ * How a request ended. Client errors are expected under load (a book that is
+ * already loaned), so they are counted apart from failures. A request still
+ * queued or running when the run stops waiting is a timeout.
+ */
+enum Outcome {
+
+    OK, REJECTED, ERROR, TIMEOUT;
+
+    static Outcome of(int status) {
+        if (status < 400) {
+            return OK;
+        }
+        return status < 500 ? REJECTED : ERROR;
+    }
+}
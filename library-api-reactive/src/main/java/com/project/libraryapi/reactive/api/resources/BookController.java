@@ -0,0 +1,84 @@
+package com.project.libraryapi.reactive.api.resources;
+
+import javax.validation.Valid;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.api.dtos.PageDTO;
+import com.project.libraryapi.reactive.services.BookService;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+@Slf4j
+public class BookController {
+
+    private final BookService bookService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<PageDTO<BookDTO>> find(BookDTO bookDTO, Pageable pageRequest) {
+        return bookService.find(bookDTO, pageRequest);
+    }
+
+    @GetMapping(produces = { MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    public Flux<BookDTO> stream(BookDTO bookDTO, Sort sort) {
+        return bookService.stream(bookDTO, sort);
+    }
+
+    @GetMapping("{id}")
+    public Mono<BookDTO> get(@PathVariable Long id) {
+        return bookService.getById(id).switchIfEmpty(notFound());
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDTO> create(@RequestBody @Valid BookDTO bookDTO) {
+        log.info("creating a book for isbn: {}", bookDTO.getIsbn());
+        return bookService.save(bookDTO);
+    }
+
+    @PutMapping("{id}")
+    public Mono<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO bookDTO) {
+        return bookService.getById(id).switchIfEmpty(notFound()).flatMap(book -> {
+            book.setAuthor(bookDTO.getAuthor());
+            book.setTitle(bookDTO.getTitle());
+            return bookService.update(book);
+        });
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id) {
+        return bookService.getById(id).switchIfEmpty(notFound()).flatMap(bookService::delete);
+    }
+
+    @GetMapping("{id}/loans")
+    public Mono<PageDTO<LoanDTO>> loansByBook(@PathVariable Long id, Pageable pageable) {
+        return bookService.getById(id).switchIfEmpty(notFound())
+                .flatMap(book -> bookService.getLoansByBook(book, pageable));
+    }
+
+    private static <T> Mono<T> notFound() {
+        return Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
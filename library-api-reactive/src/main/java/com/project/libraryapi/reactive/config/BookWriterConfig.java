@@ -0,0 +1,35 @@
+package com.project.libraryapi.reactive.config;
+
+import com.project.libraryapi.reactive.models.repositories.BookRepository;
+import com.project.libraryapi.reactive.services.BookWriter;
+import com.project.libraryapi.reactive.services.impl.DatabaseBookWriter;
+import com.project.libraryapi.reactive.services.impl.MainApplicationBookWriter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Writes books through the main application when {@code application.reactive.books.write-url} points at it, which
+ * is required when sharing its database: a row written here would be missing from its search index and stale in its
+ * caches. Without the property the rows are written straight to the database.
+ */
+@Configuration
+public class BookWriterConfig {
+
+    @Bean
+    @ConditionalOnProperty("application.reactive.books.write-url")
+    public BookWriter mainApplicationBookWriter(WebClient.Builder webClientBuilder,
+            @Value("${application.reactive.books.write-url}") String writeUrl) {
+        return new MainApplicationBookWriter(webClientBuilder, writeUrl);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(BookWriter.class)
+    public BookWriter databaseBookWriter(BookRepository bookRepository) {
+        return new DatabaseBookWriter(bookRepository);
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.libraryapi.reactive.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.r2dbc.connectionfactory.init.ConnectionFactoryInitializer;
+import org.springframework.data.r2dbc.connectionfactory.init.ResourceDatabasePopulator;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Creates the book and loan tables for a standalone database. When pointed at the database of the main application,
+ * whose schema is owned by Hibernate, set {@code application.reactive.initialize-schema=false}.
+ */
+@Configuration
+public class SchemaConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "application.reactive.initialize-schema", havingValue = "true")
+    public ConnectionFactoryInitializer schemaInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")));
+        return initializer;
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.libraryapi.reactive.models.repositories;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class BookRepository {
+
+    private static final String COLUMNS = "select b.id, b.title, b.author, b.isbn from book b";
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "b.id");
+        SORT_COLUMNS.put("title", "b.title");
+        SORT_COLUMNS.put("author", "b.author");
+        SORT_COLUMNS.put("isbn", "b.isbn");
+    }
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BookDTO> find(BookDTO filter, Sort sort) {
+        Where where = new Where(filter);
+        return where.bind(databaseClient.execute(COLUMNS + where.sql + SqlSort.orderBy(sort, SORT_COLUMNS, "b.id")))
+                .map(BookRepository::toDTO).all();
+    }
+
+    public Flux<BookDTO> find(BookDTO filter, Pageable pageable) {
+        Where where = new Where(filter);
+        String sql = COLUMNS + where.sql + SqlSort.orderBy(pageable.getSort(), SORT_COLUMNS, "b.id")
+                + " limit :limit offset :offset";
+        return where.bind(databaseClient.execute(sql)).bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset()).map(BookRepository::toDTO).all();
+    }
+
+    public Mono<Long> count(BookDTO filter) {
+        Where where = new Where(filter);
+        return where.bind(databaseClient.execute("select count(*) from book b" + where.sql))
+                .map(row -> row.get(0, Long.class)).one();
+    }
+
+    public Mono<BookDTO> findById(Long id) {
+        return databaseClient.execute(COLUMNS + " where b.id = :id").bind("id", id).map(BookRepository::toDTO)
+                .one();
+    }
+
+    /**
+     * Takes the id from the sequence the main application also allocates from. Hibernate reserves the block of 50 ids
+     * ending at each value it reads, so using the value read here as the id never overlaps with those blocks.
+     */
+    public Mono<BookDTO> insert(BookDTO book) {
+        return databaseClient.execute("select next value for book_seq").map(row -> row.get(0, Long.class)).one()
+                .flatMap(id -> databaseClient.execute("insert into book (id, title, author, isbn, version) "
+                        + "values (:id, :title, :author, :isbn, 0)").bind("id", id).bind("title", book.getTitle())
+                        .bind("author", book.getAuthor()).bind("isbn", book.getIsbn()).fetch().rowsUpdated()
+                        .thenReturn(BookDTO.builder().id(id).title(book.getTitle()).author(book.getAuthor())
+                                .isbn(book.getIsbn()).build()));
+    }
+
+    public Mono<Integer> update(BookDTO book) {
+        return databaseClient
+                .execute("update book set title = :title, author = :author, version = version + 1 where id = :id")
+                .bind("title", book.getTitle()).bind("author", book.getAuthor()).bind("id", book.getId()).fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Integer> deleteById(Long id) {
+        return databaseClient.execute("delete from book where id = :id").bind("id", id).fetch().rowsUpdated();
+    }
+
+    static BookDTO toDTO(Row row) {
+        return BookDTO.builder().id(row.get("id", Long.class)).title(row.get("title", String.class))
+                .author(row.get("author", String.class)).isbn(row.get("isbn", String.class)).build();
+    }
+
+    /**
+     * The prefix filters of the book index of the main application, in SQL: every term of the title or author must
+     * start one of its words, and every term of the isbn must start the isbn, all ignoring case. Words are split on
+     * spaces only and accents are compared as they are, where the index also splits on punctuation and folds accents.
+     */
+    private static class Where {
+
+        private final String sql;
+        private final Map<String, String> binds = new LinkedHashMap<>();
+        private final List<String> conditions = new ArrayList<>();
+
+        private Where(BookDTO filter) {
+            add("title", filter.getTitle(), true);
+            add("author", filter.getAuthor(), true);
+            add("isbn", filter.getIsbn(), false);
+            this.sql = conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+        }
+
+        private void add(String column, String value, boolean anyWord) {
+            if (value == null || value.trim().isEmpty()) {
+                return;
+            }
+            String[] terms = value.trim().split("\\s+");
+            for (int i = 0; i < terms.length; i++) {
+                String name = column + i;
+                String condition = "lower(b." + column + ") like :" + name;
+                binds.put(name, escape(terms[i]) + "%");
+                if (anyWord) {
+                    condition = "(" + condition + " or lower(b." + column + ") like :" + name + "_word)";
+                    binds.put(name + "_word", "% " + escape(terms[i]) + "%");
+                }
+                conditions.add(condition);
+            }
+        }
+
+        private static String escape(String value) {
+            return value.toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        }
+
+        private GenericExecuteSpec bind(GenericExecuteSpec spec) {
+            for (Map.Entry<String, String> bind : binds.entrySet()) {
+                spec = spec.bind(bind.getKey(), bind.getValue());
+            }
+            return spec;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.project.libraryapi.reactive.models.repositories;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.LoanDTO;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class LoanRepository {
+
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "l.id");
+        SORT_COLUMNS.put("customer", "l.customer");
+        SORT_COLUMNS.put("customerEmail", "l.customer_email");
+        SORT_COLUMNS.put("loanDate", "l.loan_date");
+        SORT_COLUMNS.put("returned", "l.returned");
+    }
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<LoanDTO> findByBook(BookDTO book, Pageable pageable) {
+        String sql = "select l.id, l.customer, l.customer_email from loan l where l.book_id = :bookId"
+                + SqlSort.orderBy(pageable.getSort(), SORT_COLUMNS, "l.id") + " limit :limit offset :offset";
+        return databaseClient.execute(sql).bind("bookId", book.getId()).bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(row -> LoanDTO.builder().id(row.get("id", Long.class)).isbn(book.getIsbn())
+                        .customer(row.get("customer", String.class))
+                        .customerEmail(row.get("customer_email", String.class)).book(book).build())
+                .all();
+    }
+
+    public Mono<Long> countByBook(BookDTO book) {
+        return databaseClient.execute("select count(*) from loan l where l.book_id = :bookId")
+                .bind("bookId", book.getId()).map(row -> row.get(0, Long.class)).one();
+    }
+}
@@ -0,0 +1,29 @@
+package com.project.libraryapi.reactive.models.repositories;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.project.libraryapi.api.exceptions.BusinessException;
+
+import org.springframework.data.domain.Sort;
+
+final class SqlSort {
+
+    private SqlSort() {
+    }
+
+    /**
+     * Translates a sort over DTO properties into an order by clause, always ending on the id so pages and streams are
+     * stable. Only the mapped properties are accepted, which also keeps request input out of the SQL text.
+     */
+    static String orderBy(Sort sort, Map<String, String> columns, String idColumn) {
+        String order = sort.stream().map(sortOrder -> {
+            String column = columns.get(sortOrder.getProperty());
+            if (column == null) {
+                throw new BusinessException("Invalid sort property: " + sortOrder.getProperty());
+            }
+            return column + (sortOrder.isAscending() ? " asc" : " desc");
+        }).collect(Collectors.joining(", "));
+        return " order by " + (order.isEmpty() ? "" : order + ", ") + idColumn;
+    }
+}
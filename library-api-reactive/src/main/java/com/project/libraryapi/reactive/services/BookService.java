@@ -0,0 +1,28 @@
+package com.project.libraryapi.reactive.services;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.api.dtos.PageDTO;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface BookService {
+
+    Mono<PageDTO<BookDTO>> find(BookDTO filter, Pageable pageRequest);
+
+    Flux<BookDTO> stream(BookDTO filter, Sort sort);
+
+    Mono<BookDTO> getById(Long id);
+
+    Mono<BookDTO> save(BookDTO book);
+
+    Mono<BookDTO> update(BookDTO book);
+
+    Mono<Void> delete(BookDTO book);
+
+    Mono<PageDTO<LoanDTO>> getLoansByBook(BookDTO book, Pageable pageable);
+}
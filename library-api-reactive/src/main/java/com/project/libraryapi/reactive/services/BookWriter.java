@@ -0,0 +1,18 @@
+package com.project.libraryapi.reactive.services;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Where book writes go. On its own database the reactive API writes the rows itself; on the database of the main
+ * application the writes go through the main application, which keeps its search index and caches in step with them.
+ */
+public interface BookWriter {
+
+    Mono<BookDTO> insert(BookDTO book);
+
+    Mono<BookDTO> update(BookDTO book);
+
+    Mono<Void> delete(Long id);
+}
@@ -0,0 +1,75 @@
+package com.project.libraryapi.reactive.services.impl;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.api.dtos.PageDTO;
+import com.project.libraryapi.reactive.models.repositories.BookRepository;
+import com.project.libraryapi.reactive.models.repositories.LoanRepository;
+import com.project.libraryapi.reactive.services.BookService;
+import com.project.libraryapi.reactive.services.BookWriter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class BookServiceImpl implements BookService {
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final BookWriter bookWriter;
+
+    @Value("${application.books.stream.prefetch}")
+    private int streamPrefetch;
+
+    @Override
+    public Mono<PageDTO<BookDTO>> find(BookDTO filter, Pageable pageRequest) {
+        return Mono.zip(bookRepository.find(filter, pageRequest).collectList(), bookRepository.count(filter))
+                .map(result -> PageDTO.of(new PageImpl<>(result.getT1(), pageRequest, result.getT2())));
+    }
+
+    @Override
+    public Flux<BookDTO> stream(BookDTO filter, Sort sort) {
+        // rows are pulled from the database only as fast as the client reads them
+        return bookRepository.find(filter, sort).limitRate(streamPrefetch);
+    }
+
+    @Override
+    public Mono<BookDTO> getById(Long id) {
+        return bookRepository.findById(id);
+    }
+
+    @Override
+    public Mono<BookDTO> save(BookDTO book) {
+        return bookWriter.insert(book);
+    }
+
+    @Override
+    public Mono<BookDTO> update(BookDTO book) {
+        if (book == null || book.getId() == null) {
+            return Mono.error(new IllegalArgumentException("Book id can't be null"));
+        }
+        return bookWriter.update(book);
+    }
+
+    @Override
+    public Mono<Void> delete(BookDTO book) {
+        if (book == null || book.getId() == null) {
+            return Mono.error(new IllegalArgumentException("Book id can't be null"));
+        }
+        return bookWriter.delete(book.getId());
+    }
+
+    @Override
+    public Mono<PageDTO<LoanDTO>> getLoansByBook(BookDTO book, Pageable pageable) {
+        return Mono.zip(loanRepository.findByBook(book, pageable).collectList(), loanRepository.countByBook(book))
+                .map(result -> PageDTO.of(new PageImpl<>(result.getT1(), pageable, result.getT2())));
+    }
+}
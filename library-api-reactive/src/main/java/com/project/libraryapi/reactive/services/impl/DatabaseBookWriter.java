@@ -0,0 +1,40 @@
+package com.project.libraryapi.reactive.services.impl;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.reactive.models.repositories.BookRepository;
+import com.project.libraryapi.reactive.services.BookWriter;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class DatabaseBookWriter implements BookWriter {
+
+    private static final String ISBN_CONSTRAINT = "uk_book_isbn";
+
+    private final BookRepository bookRepository;
+
+    @Override
+    public Mono<BookDTO> insert(BookDTO book) {
+        return bookRepository.insert(book).onErrorMap(this::isIsbnViolation,
+                ex -> new BusinessException("Isbn já cadastrado"));
+    }
+
+    @Override
+    public Mono<BookDTO> update(BookDTO book) {
+        return bookRepository.update(book).thenReturn(book);
+    }
+
+    @Override
+    public Mono<Void> delete(Long id) {
+        return bookRepository.deleteById(id).then();
+    }
+
+    private boolean isIsbnViolation(Throwable ex) {
+        return ex instanceof DataIntegrityViolationException && ex.getMessage() != null
+                && ex.getMessage().toLowerCase().contains(ISBN_CONSTRAINT);
+    }
+}
@@ -0,0 +1,56 @@
+package com.project.libraryapi.reactive.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.reactive.services.BookWriter;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends the writes to the book API of the main application. Its errors come back with the same status, and its
+ * rejections (e.g. a duplicate isbn) with the same message.
+ */
+public class MainApplicationBookWriter implements BookWriter {
+
+    private final WebClient webClient;
+
+    public MainApplicationBookWriter(WebClient.Builder webClientBuilder, String baseUrl) {
+        this.webClient = webClientBuilder.baseUrl(baseUrl + "/api/books").build();
+    }
+
+    @Override
+    public Mono<BookDTO> insert(BookDTO book) {
+        return webClient.post().bodyValue(book).retrieve()
+                .onStatus(HttpStatus::is4xxClientError, MainApplicationBookWriter::toException)
+                .bodyToMono(BookDTO.class);
+    }
+
+    @Override
+    public Mono<BookDTO> update(BookDTO book) {
+        return webClient.put().uri("/{id}", book.getId()).bodyValue(book).retrieve()
+                .onStatus(HttpStatus::is4xxClientError, MainApplicationBookWriter::toException)
+                .bodyToMono(BookDTO.class);
+    }
+
+    @Override
+    public Mono<Void> delete(Long id) {
+        return webClient.delete().uri("/{id}", id).retrieve()
+                .onStatus(HttpStatus::is4xxClientError, MainApplicationBookWriter::toException)
+                .bodyToMono(Void.class);
+    }
+
+    private static Mono<Throwable> toException(ClientResponse response) {
+        HttpStatus status = response.statusCode();
+        return response.bodyToMono(JsonNode.class).onErrorResume(ex -> Mono.empty())
+                .flatMap(body -> Mono.justOrEmpty(body.path("errors").path(0).textValue()))
+                .map(reason -> status == HttpStatus.BAD_REQUEST ? new BusinessException(reason)
+                        : (Throwable) new ResponseStatusException(status, reason))
+                .defaultIfEmpty(new ResponseStatusException(status));
+    }
+}
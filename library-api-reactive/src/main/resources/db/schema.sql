@@ -0,0 +1,26 @@
+-- ids of the books the reactive API writes itself, allocated from the same sequence as the main application
+create sequence if not exists book_seq start with 1 increment by 50;
+
+create table if not exists book (
+    id bigint not null,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    version bigint not null,
+    primary key (id),
+    constraint uk_book_isbn unique (isbn)
+);
+
+create table if not exists loan (
+    id bigint generated by default as identity,
+    customer varchar(255),
+    customer_email varchar(255),
+    loan_date date,
+    returned boolean not null,
+    version bigint not null,
+    book_id bigint,
+    primary key (id),
+    foreign key (book_id) references book (id)
+);
+
+create index if not exists idx_loan_book_returned on loan (book_id, returned);
@@ -0,0 +1,158 @@
+package com.project.libraryapi.reactive.api.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Writes with {@code application.reactive.books.write-url} set, against a stand-in for the main application that
+ * records the requests it gets and answers like the main application would.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureWebTestClient
+class BookControllerMainApplicationTest {
+
+    static String BOOK_API_URL = "/api/books";
+
+    static final List<String> requests = new CopyOnWriteArrayList<>();
+    static DisposableServer mainApplication;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @DynamicPropertySource
+    static void mainApplicationUrl(DynamicPropertyRegistry registry) {
+        mainApplication = HttpServer.create().port(0)
+                .route(routes -> routes.post(BOOK_API_URL, BookControllerMainApplicationTest::create)
+                        .put(BOOK_API_URL + "/{id}", BookControllerMainApplicationTest::update)
+                        .delete(BOOK_API_URL + "/{id}", BookControllerMainApplicationTest::delete))
+                .bindNow();
+        registry.add("application.reactive.books.write-url", () -> "http://localhost:" + mainApplication.port());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mainApplication.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        requests.clear();
+        databaseClient.execute("delete from loan").then()
+                .then(databaseClient.execute("delete from book").then()).block();
+    }
+
+    @Test
+    @DisplayName("Deve criar um livro pela aplicacao principal")
+    void createBookTest() {
+        webTestClient.post().uri(BOOK_API_URL)
+                .bodyValue(BookDTO.builder().title("The legend").author("Test").isbn("123456").build()).exchange()
+                .expectStatus().isCreated().expectBody().jsonPath("id").isEqualTo(10).jsonPath("isbn")
+                .isEqualTo("123456");
+
+        Assertions.assertThat(requests).hasSize(1);
+        Assertions.assertThat(requests.get(0)).startsWith("POST /api/books ").contains("\"isbn\":\"123456\"");
+    }
+
+    @Test
+    @DisplayName("Deve repassar o erro da aplicacao principal ao criar livro com isbn ja cadastrado")
+    void createDuplicatedBookTest() {
+        webTestClient.post().uri(BOOK_API_URL)
+                .bodyValue(BookDTO.builder().title("The legend").author("Test").isbn("duplicated").build())
+                .exchange().expectStatus().isBadRequest().expectBody().jsonPath("errors[0]")
+                .isEqualTo("Isbn já cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve validar o livro sem chamar a aplicacao principal")
+    void createInvalidBookTest() {
+        webTestClient.post().uri(BOOK_API_URL).bodyValue(new BookDTO()).exchange().expectStatus().isBadRequest()
+                .expectBody().jsonPath("errors.length()").isEqualTo(3);
+
+        Assertions.assertThat(requests).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar e remover um livro pela aplicacao principal")
+    void updateAndDeleteBookTest() {
+        databaseClient.execute("insert into book (id, title, author, isbn, version) "
+                + "values (1, 'The legend', 'Test', '123456', 0)").then().block();
+
+        webTestClient.put().uri(BOOK_API_URL + "/1")
+                .bodyValue(BookDTO.builder().title("New title").author("New author").isbn("999").build()).exchange()
+                .expectStatus().isOk().expectBody().jsonPath("title").isEqualTo("New title");
+        webTestClient.delete().uri(BOOK_API_URL + "/1").exchange().expectStatus().isNoContent();
+
+        Assertions.assertThat(requests).hasSize(2);
+        Assertions.assertThat(requests.get(0)).startsWith("PUT /api/books/1 ").contains("\"title\":\"New title\"")
+                .contains("\"isbn\":\"123456\"");
+        Assertions.assertThat(requests.get(1)).isEqualTo("DELETE /api/books/1 ");
+    }
+
+    @Test
+    @DisplayName("Deve repassar o not found da aplicacao principal")
+    void deleteBookMissingOnMainApplicationTest() {
+        databaseClient.execute("insert into book (id, title, author, isbn, version) "
+                + "values (2, 'The legend', 'Test', '123456', 0)").then().block();
+
+        webTestClient.delete().uri(BOOK_API_URL + "/2").exchange().expectStatus().isNotFound();
+    }
+
+    private static Mono<Void> create(HttpServerRequest request, HttpServerResponse response) {
+        return record(request).flatMap(body -> body.contains("\"duplicated\"")
+                ? json(response, HttpStatus.BAD_REQUEST, "{\"errors\":[\"Isbn já cadastrado\"]}")
+                : json(response, HttpStatus.CREATED, body.replace("\"id\":null", "\"id\":10")));
+    }
+
+    private static Mono<Void> update(HttpServerRequest request, HttpServerResponse response) {
+        return record(request).flatMap(body -> json(response, HttpStatus.OK, body));
+    }
+
+    private static Mono<Void> delete(HttpServerRequest request, HttpServerResponse response) {
+        return record(request).flatMap(body -> "1".equals(request.param("id"))
+                ? response.status(HttpStatus.NO_CONTENT.value()).send()
+                : json(response, HttpStatus.NOT_FOUND, "{\"errors\":[null]}"));
+    }
+
+    private static Mono<String> record(HttpServerRequest request) {
+        return request.receive().aggregate().asString().defaultIfEmpty("").doOnNext(
+                body -> requests.add(request.method().name() + " " + request.uri() + " " + body));
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, HttpStatus status, String body) {
+        return response.status(status.value()).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendString(Mono.just(body), StandardCharsets.UTF_8).then();
+    }
+}
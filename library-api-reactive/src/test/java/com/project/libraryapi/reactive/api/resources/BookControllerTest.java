@@ -0,0 +1,174 @@
+package com.project.libraryapi.reactive.api.resources;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureWebTestClient
+class BookControllerTest {
+
+    static String BOOK_API_URL = "/api/books";
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        databaseClient.execute("delete from loan").then()
+                .then(databaseClient.execute("delete from book").then()).block();
+    }
+
+    @Test
+    @DisplayName("Deve criar e obter um livro")
+    void createAndGetBookTest() {
+        BookDTO created = create("The legend", "Test", "123456");
+
+        Assertions.assertThat(created.getId()).isNotNull();
+        webTestClient.get().uri(BOOK_API_URL + "/" + created.getId()).exchange().expectStatus().isOk()
+                .expectBody(BookDTO.class).isEqualTo(created);
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro ao criar livro com isbn ja cadastrado ou dados insuficientes")
+    void createInvalidBookTest() {
+        create("The legend", "Test", "123456");
+
+        webTestClient.post().uri(BOOK_API_URL)
+                .bodyValue(BookDTO.builder().title("Other").author("Other").isbn("123456").build()).exchange()
+                .expectStatus().isBadRequest().expectBody().jsonPath("errors[0]").isEqualTo("Isbn já cadastrado");
+        webTestClient.post().uri(BOOK_API_URL).bodyValue(new BookDTO()).exchange().expectStatus().isBadRequest()
+                .expectBody().jsonPath("errors.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros paginando com o total de elementos")
+    void findBooksTest() {
+        create("The legend", "Test", "1");
+        create("Legendary", "Other", "2");
+        create("Unrelated", "Test", "3");
+
+        webTestClient.get().uri(BOOK_API_URL + "?title=LEGEND&page=0&size=1&sort=title,desc")
+                .accept(MediaType.APPLICATION_JSON).exchange().expectStatus().isOk().expectBody()
+                .jsonPath("content.length()").isEqualTo(1).jsonPath("content[0].title").isEqualTo("The legend")
+                .jsonPath("totalElements").isEqualTo(2).jsonPath("size").isEqualTo(1).jsonPath("number")
+                .isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros pelo inicio das palavras, como a busca da aplicacao principal")
+    void findBooksByWordPrefixTest() {
+        create("The legend", "Test", "978-1");
+        create("Legendary", "Other", "978-2");
+        create("Unrelated", "Test", "123");
+
+        webTestClient.get().uri(BOOK_API_URL + "?title=gend").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk().expectBody().jsonPath("totalElements").isEqualTo(0);
+        webTestClient.get().uri(BOOK_API_URL + "?title=leg the").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk().expectBody().jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("content[0].title").isEqualTo("The legend");
+        webTestClient.get().uri(BOOK_API_URL + "?isbn=978&author=tes").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk().expectBody().jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("content[0].isbn").isEqualTo("978-1");
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro ao ordenar livros por uma propriedade invalida")
+    void findBooksWithInvalidSortTest() {
+        webTestClient.get().uri(BOOK_API_URL + "?sort=version").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isBadRequest().expectBody().jsonPath("errors[0]")
+                .isEqualTo("Invalid sort property: version");
+        webTestClient.get().uri(BOOK_API_URL + "?sort=version").accept(MediaType.APPLICATION_STREAM_JSON).exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Deve transmitir os livros filtrados conforme a demanda do cliente")
+    void streamBooksTest() {
+        for (int i = 0; i < 5; i++) {
+            create("The legend " + i, "Test", "isbn-" + i);
+        }
+        create("Unrelated", "Other", "other");
+
+        List<BookDTO> books = webTestClient.get().uri(BOOK_API_URL + "?author=test&sort=isbn,desc")
+                .accept(MediaType.APPLICATION_STREAM_JSON).exchange().expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON)
+                .returnResult(BookDTO.class).getResponseBody().collectList().block();
+
+        Assertions.assertThat(books).extracting("isbn").containsExactly("isbn-4", "isbn-3", "isbn-2", "isbn-1",
+                "isbn-0");
+
+        StepVerifier.create(webTestClient.get().uri(BOOK_API_URL).accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange().returnResult(BookDTO.class).getResponseBody(), 2).expectNextCount(2).thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar e remover um livro")
+    void updateAndDeleteBookTest() {
+        BookDTO created = create("The legend", "Test", "123456");
+
+        webTestClient.put().uri(BOOK_API_URL + "/" + created.getId())
+                .bodyValue(BookDTO.builder().title("New title").author("New author").isbn("999").build()).exchange()
+                .expectStatus().isOk().expectBody().jsonPath("title").isEqualTo("New title")
+                .jsonPath("author").isEqualTo("New author").jsonPath("isbn").isEqualTo("123456");
+
+        webTestClient.delete().uri(BOOK_API_URL + "/" + created.getId()).exchange().expectStatus().isNoContent();
+        webTestClient.get().uri(BOOK_API_URL + "/" + created.getId()).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found ao alterar ou remover livro inexistente")
+    void missingBookTest() {
+        BookDTO book = BookDTO.builder().title("The legend").author("Test").isbn("123456").build();
+
+        webTestClient.put().uri(BOOK_API_URL + "/1").bodyValue(book).exchange().expectStatus().isNotFound();
+        webTestClient.delete().uri(BOOK_API_URL + "/1").exchange().expectStatus().isNotFound();
+        webTestClient.get().uri(BOOK_API_URL + "/1/loans").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar emprestimos de um livro")
+    void loansByBookTest() {
+        BookDTO book = create("The legend", "Test", "123456");
+        for (String customer : new String[] { "a", "b", "c" }) {
+            databaseClient.execute("insert into loan (customer, customer_email, loan_date, returned, version, book_id) "
+                    + "values (:customer, :email, :loanDate, false, 0, :bookId)").bind("customer", customer)
+                    .bind("email", customer + "@email.com").bind("loanDate", LocalDate.now())
+                    .bind("bookId", book.getId()).then().block();
+        }
+
+        webTestClient.get().uri(BOOK_API_URL + "/" + book.getId() + "/loans?page=0&size=2&sort=customer,desc")
+                .exchange().expectStatus().isOk().expectBody().jsonPath("content.length()").isEqualTo(2)
+                .jsonPath("content[0].customer").isEqualTo("c").jsonPath("content[0].isbn").isEqualTo("123456")
+                .jsonPath("content[0].book.title").isEqualTo("The legend").jsonPath("totalElements").isEqualTo(3);
+    }
+
+    private BookDTO create(String title, String author, String isbn) {
+        return webTestClient.post().uri(BOOK_API_URL)
+                .bodyValue(BookDTO.builder().title(title).author(author).isbn(isbn).build()).exchange()
+                .expectStatus().isCreated().expectBody(BookDTO.class).returnResult().getResponseBody();
+    }
+}
@@ -0,0 +1,24 @@
+package com.project.libraryapi.api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One position of a batch read: the requested id or isbn and, when {@code found}, the book.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchEntryDTO {
+
+    private Long id;
+
+    private String isbn;
+
+    private boolean found;
+
+    private BookDTO book;
+}
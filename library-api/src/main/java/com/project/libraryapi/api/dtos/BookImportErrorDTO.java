@@ -0,0 +1,21 @@
+package com.project.libraryapi.api.dtos;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportErrorDTO {
+
+    private long line;
+
+    private String isbn;
+
+    private List<String> errors;
+}
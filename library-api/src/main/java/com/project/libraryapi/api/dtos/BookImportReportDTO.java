@@ -0,0 +1,27 @@
+package com.project.libraryapi.api.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportReportDTO {
+
+    private long processed;
+
+    private long imported;
+
+    private long rejected;
+
+    @Builder.Default
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+}
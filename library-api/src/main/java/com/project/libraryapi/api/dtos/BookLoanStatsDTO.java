@@ -0,0 +1,21 @@
+package com.project.libraryapi.api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLoanStatsDTO {
+
+    private Long bookId;
+
+    private boolean available;
+
+    private long activeLoans;
+
+    private long totalLoans;
+}
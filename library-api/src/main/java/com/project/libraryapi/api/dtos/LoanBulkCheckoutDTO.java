@@ -0,0 +1,25 @@
+package com.project.libraryapi.api.dtos;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBulkCheckoutDTO {
+
+    @NotEmpty
+    private String customer;
+
+    private String customerEmail;
+
+    @NotEmpty
+    private List<@NotEmpty String> isbns;
+}
@@ -0,0 +1,25 @@
+package com.project.libraryapi.api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One position of a bulk checkout or return: the loan id and isbn when known and, unless {@code success}, why
+ * that item was rejected.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBulkResultDTO {
+
+    private Long loanId;
+
+    private String isbn;
+
+    private boolean success;
+
+    private String error;
+}
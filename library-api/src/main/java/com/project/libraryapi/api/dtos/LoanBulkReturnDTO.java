@@ -0,0 +1,21 @@
+package com.project.libraryapi.api.dtos;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBulkReturnDTO {
+
+    @NotEmpty
+    private List<@NotNull Long> ids;
+}
@@ -0,0 +1,21 @@
+package com.project.libraryapi.api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Loan totals over every book that was checked out since its availability is
+ * recorded.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatsDTO {
+
+    private long activeLoans;
+
+    private long totalLoans;
+}
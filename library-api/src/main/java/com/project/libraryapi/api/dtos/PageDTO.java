@@ -0,0 +1,42 @@
+package com.project.libraryapi.api.dtos;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Page;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page envelope of the API: the fields of Spring's {@code Page} that a client cannot derive, without the
+ * {@code pageable}, {@code sort} and boolean flags repeated on every response.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTO<T> {
+
+    private List<T> content;
+
+    private int number;
+
+    private int size;
+
+    private long totalElements;
+
+    private int totalPages;
+
+    public static <T> PageDTO<T> of(Page<T> page) {
+        return of(page, Function.identity());
+    }
+
+    public static <T, R> PageDTO<R> of(Page<T> page, Function<T, R> mapper) {
+        List<R> content = page.getContent().stream().map(mapper).collect(Collectors.toList());
+        return new PageDTO<>(content, page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.libraryapi.api.dtos;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Slice;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page envelope for clients that do not show totals: like {@link PageDTO}, but with {@code hasNext} in place of the
+ * totals, so no count query is run to build it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceDTO<T> {
+
+    private List<T> content;
+
+    private int number;
+
+    private int size;
+
+    private boolean hasNext;
+
+    public static <T, R> SliceDTO<R> of(Slice<T> slice, Function<T, R> mapper) {
+        List<R> content = slice.getContent().stream().map(mapper).collect(Collectors.toList());
+        return new SliceDTO<>(content, slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+}
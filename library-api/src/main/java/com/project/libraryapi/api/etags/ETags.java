@@ -0,0 +1,68 @@
+package com.project.libraryapi.api.etags;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Function;
+
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Entity tags derived from the {@code @Version} columns, so a conditional request is answered from what was loaded,
+ * before any mapping or serialization. All tags are weak: the JSON, CBOR and Smile bodies of the same state, gzipped
+ * or not, share one tag, which a strong tag would promise to be byte-identical. A single resource is tagged with its
+ * version. A page is tagged with a hash of the ids and versions of its rows plus what is said about the rest of the
+ * result (total or next page).
+ */
+public final class ETags {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    public static String weak(Long version) {
+        return WEAK_PREFIX + opaque(version);
+    }
+
+    public static <T> String weak(Object resultInfo, Collection<T> content, Function<T, String> versionExtractor) {
+        StringBuilder state = new StringBuilder(String.valueOf(resultInfo));
+        content.forEach(row -> state.append(',').append(versionExtractor.apply(row)));
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8))
+                + "\"";
+    }
+
+    public static String version(Book book) {
+        return book.getId() + ":" + book.getVersion();
+    }
+
+    /** A loan's representation embeds its book, so a change to either changes the tag. */
+    public static String version(Loan loan) {
+        return loan.getId() + ":" + loan.getVersion() + ":" + version(loan.getBook());
+    }
+
+    /**
+     * {@code If-Match} check against the version of a single resource. Its tag is weak, so the strong comparison of
+     * RFC 7232 would never pass; the opaque versions are compared instead, which is what guards a lost update.
+     */
+    public static boolean matches(String ifMatch, Long version) {
+        String expected = opaque(version);
+        for (String candidate : StringUtils.commaDelimitedListToStringArray(ifMatch)) {
+            candidate = candidate.trim();
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+            if ("*".equals(candidate) || candidate.equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(Long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.libraryapi.api.exports;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.project.libraryapi.models.projections.LoanExportRow;
+
+import org.springframework.http.MediaType;
+
+public enum LoanExportFormat {
+
+    CSV("text/csv") {
+        @Override
+        public Consumer<LoanExportRow> writer(Writer out, ObjectMapper objectMapper) throws IOException {
+            out.write("id,isbn,customer,customerEmail,loanDate,returned\n");
+            return row -> write(out,
+                    String.join(",", String.valueOf(row.getId()), csv(row.getIsbn()), csv(row.getCustomer()),
+                            csv(row.getCustomerEmail()), csv(row.getLoanDate()), csv(row.getReturned())) + "\n");
+        }
+    },
+
+    NDJSON("application/x-ndjson") {
+        @Override
+        public Consumer<LoanExportRow> writer(Writer out, ObjectMapper objectMapper) {
+            ObjectWriter rowWriter = objectMapper.writerFor(LoanExportRow.class);
+            return row -> {
+                try {
+                    write(out, rowWriter.writeValueAsString(row) + "\n");
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            };
+        }
+    };
+
+    private final MediaType mediaType;
+
+    LoanExportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public abstract Consumer<LoanExportRow> writer(Writer out, ObjectMapper objectMapper) throws IOException;
+
+    private static void write(Writer out, String text) {
+        try {
+            out.write(text);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
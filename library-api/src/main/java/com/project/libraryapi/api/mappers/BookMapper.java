@@ -0,0 +1,17 @@
+package com.project.libraryapi.api.mappers;
+
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.models.entities.Book;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring")
+public interface BookMapper {
+
+    BookDTO toDTO(Book book);
+
+    @Mapping(target = "loans", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Book toEntity(BookDTO bookDTO);
+}
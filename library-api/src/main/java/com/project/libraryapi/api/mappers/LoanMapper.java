@@ -0,0 +1,15 @@
+package com.project.libraryapi.api.mappers;
+
+import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.models.entities.Loan;
+
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", uses = BookMapper.class, injectionStrategy = InjectionStrategy.CONSTRUCTOR)
+public interface LoanMapper {
+
+    @Mapping(target = "isbn", source = "book.isbn")
+    LoanDTO toDTO(Loan loan);
+}
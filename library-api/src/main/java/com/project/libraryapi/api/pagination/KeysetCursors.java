@@ -0,0 +1,96 @@
+package com.project.libraryapi.api.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import com.project.libraryapi.api.dtos.CursorPageDTO;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+/**
+ * Opaque "after" tokens for seek pagination. A token carries the sort property, its direction, the id and the
+ * sort value of the last row returned, so the next page is a range scan instead of an offset.
+ */
+public final class KeysetCursors {
+
+    private static final String SEPARATOR = ",";
+
+    private KeysetCursors() {
+    }
+
+    public static KeysetPageRequest toRequest(String after, Pageable pageable, Collection<String> sortableProperties,
+            Class<?> type) {
+        Sort.Order order = pageable.getSort().stream().findFirst()
+                .orElse(Sort.Order.asc(KeysetPageRequest.ID));
+        if (!sortableProperties.contains(order.getProperty())) {
+            throw new BusinessException("Invalid sort property for cursor");
+        }
+
+        KeysetPageRequest request = KeysetPageRequest.builder().property(order.getProperty())
+                .direction(order.getDirection()).size(pageable.getPageSize()).build();
+        if (!StringUtils.hasText(after)) {
+            return request;
+        }
+
+        String[] parts = decode(after, BeanUtils.findPropertyType(order.getProperty(), type));
+        if (!order.getProperty().equals(parts[0]) || !order.getDirection().name().equals(parts[1])) {
+            throw new BusinessException("Cursor does not match the requested sort");
+        }
+        request.setLastId(Long.valueOf(parts[2]));
+        request.setLastValue(parts[3]);
+        return request;
+    }
+
+    public static <T, R> CursorPageDTO<R> toPage(KeysetSlice<T> slice, KeysetPageRequest request,
+            Function<T, Long> idExtractor, Function<T, R> mapper) {
+        List<T> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.isHasNext() && !content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            Object value = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue(request.getProperty());
+            nextCursor = encode(request, idExtractor.apply(last), value);
+        }
+        return new CursorPageDTO<>(slice.map(mapper).getContent(), request.getSize(), nextCursor);
+    }
+
+    private static String encode(KeysetPageRequest request, Long id, Object value) {
+        String raw = String.join(SEPARATOR, request.getProperty(), request.getDirection().name(), String.valueOf(id),
+                String.valueOf(value));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splits a token into property, direction, id and sort value, rejecting it unless the id is a number and the
+     * value parses as the type of the sort property.
+     */
+    private static String[] decode(String cursor, Class<?> valueType) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException(cursor);
+            }
+            Long.valueOf(parts[2]);
+            if (Long.class.equals(valueType)) {
+                Long.valueOf(parts[3]);
+            } else if (LocalDate.class.equals(valueType)) {
+                LocalDate.parse(parts[3]);
+            }
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.project.libraryapi.api.resources;
 import com.project.libraryapi.api.exceptions.ApiErrors;
 import com.project.libraryapi.api.exceptions.BusinessException;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -29,6 +30,12 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(ex);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return handleResponseStatusException(
+                new ResponseStatusException(HttpStatus.CONFLICT, "Resource was modified concurrently"));
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex) {
         return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
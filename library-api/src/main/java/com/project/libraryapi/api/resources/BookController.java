@@ -1,31 +1,52 @@
 package com.project.libraryapi.api.resources;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
+import com.project.libraryapi.api.dtos.BookBatchEntryDTO;
 import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.BookImportReportDTO;
+import com.project.libraryapi.api.dtos.BookLoanStatsDTO;
+import com.project.libraryapi.api.dtos.CursorPageDTO;
 import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.api.dtos.PageDTO;
+import com.project.libraryapi.api.dtos.SliceDTO;
+import com.project.libraryapi.api.etags.ETags;
+import com.project.libraryapi.api.mappers.BookMapper;
+import com.project.libraryapi.api.mappers.LoanMapper;
+import com.project.libraryapi.api.pagination.KeysetCursors;
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.services.BookImportService;
 import com.project.libraryapi.services.BookService;
 import com.project.libraryapi.services.LoanService;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import io.swagger.annotations.Api;
@@ -40,25 +61,80 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class BookController {
 
+    // the properties with a sortable field in the book index, for the searches as well as the cursors
+    private static final List<String> SORT_PROPERTIES = Arrays.asList("id", "title", "author", "isbn");
+
     private final BookService bookService;
     private final LoanService loanService;
-    private final ModelMapper modelMapper;
+    private final BookImportService bookImportService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
 
     @GetMapping
     @ApiOperation("Find books by params")
-    public Page<BookDTO> find(BookDTO bookDTO, Pageable pageRequest) {
-        Book filter = modelMapper.map(bookDTO, Book.class);
+    public PageDTO<BookDTO> find(BookDTO bookDTO, Pageable pageRequest, WebRequest request) {
+        checkSortProperties(pageRequest);
+        Book filter = bookMapper.toEntity(bookDTO);
         Page<Book> result = bookService.find(filter, pageRequest);
-        List<BookDTO> list = result.getContent().stream().map(entity -> modelMapper.map(entity, BookDTO.class))
-                .collect(Collectors.toList());
-        return new PageImpl<>(list, pageRequest, result.getTotalElements());
+        if (request.checkNotModified(ETags.weak(result.getTotalElements(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return PageDTO.of(result, bookMapper::toDTO);
+    }
+
+    @GetMapping(params = { "count=false", "!after" })
+    @ApiOperation("Find books by params, telling whether there is a next page instead of counting the total")
+    public SliceDTO<BookDTO> findSlice(BookDTO bookDTO, Pageable pageRequest, WebRequest request) {
+        checkSortProperties(pageRequest);
+        Book filter = bookMapper.toEntity(bookDTO);
+        Slice<Book> result = bookService.findSlice(filter, pageRequest);
+        if (request.checkNotModified(ETags.weak(result.hasNext(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return SliceDTO.of(result, bookMapper::toDTO);
+    }
+
+    @GetMapping(params = "after")
+    @ApiOperation("Find books by params using a cursor, without counting the total")
+    public CursorPageDTO<BookDTO> findAfter(BookDTO bookDTO, @RequestParam String after, Pageable pageRequest,
+            WebRequest request) {
+        Book filter = bookMapper.toEntity(bookDTO);
+        KeysetPageRequest keysetRequest = KeysetCursors.toRequest(after, pageRequest, SORT_PROPERTIES, Book.class);
+        KeysetSlice<Book> result = bookService.find(filter, keysetRequest);
+        if (request.checkNotModified(ETags.weak(result.isHasNext(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return KeysetCursors.toPage(result, keysetRequest, Book::getId, bookMapper::toDTO);
     }
 
     @GetMapping("{id}")
     @ApiOperation("Obtains a book details by id")
-    public BookDTO get(@PathVariable Long id) {
-        return bookService.getById(id).map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    public BookDTO get(@PathVariable Long id, WebRequest request) {
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (request.checkNotModified(ETags.weak(book.getVersion()))) {
+            return null;
+        }
+        return bookMapper.toDTO(book);
+    }
+
+    @GetMapping("batch")
+    @ApiOperation("Obtains the books of a list of ids or isbns, in the requested order")
+    public List<BookBatchEntryDTO> batch(@RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) List<String> isbns) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byIsbns = isbns != null && !isbns.isEmpty();
+        if (byIds == byIsbns) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Inform either ids or isbns");
+        }
+
+        List<Book> books = byIds ? bookService.getByIds(ids) : bookService.getByIsbns(isbns);
+        List<BookBatchEntryDTO> entries = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            entries.add(BookBatchEntryDTO.builder().id(byIds ? ids.get(i) : null).isbn(byIsbns ? isbns.get(i) : null)
+                    .found(book != null).book(book != null ? bookMapper.toDTO(book) : null).build());
+        }
+        return entries;
     }
 
     @PostMapping
@@ -66,20 +142,31 @@ public class BookController {
     @ApiOperation("Create a book")
     public BookDTO create(@RequestBody @Valid BookDTO bookDTO) {
         log.info("creating a book for isbn: {}", bookDTO.getIsbn());
-        Book book = modelMapper.map(bookDTO, Book.class);
+        Book book = bookMapper.toEntity(bookDTO);
         book = bookService.save(book);
-        return modelMapper.map(book, BookDTO.class);
+        return bookMapper.toDTO(book);
+    }
+
+    @PostMapping(value = "import", consumes = { BookImportService.NDJSON, BookImportService.CSV })
+    @ApiOperation("Import books from a NDJSON or CSV stream")
+    public BookImportReportDTO importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        return bookImportService.importBooks(body, contentType);
     }
 
     @PutMapping("{id}")
-    @ApiOperation("Update a book")
-    public BookDTO update(@PathVariable Long id, @RequestBody @Valid BookDTO bookDTO) {
-        return bookService.getById(id).map(book -> {
-            book.setAuthor(bookDTO.getAuthor());
-            book.setTitle(bookDTO.getTitle());
-            book = bookService.update(book);
-            return modelMapper.map(book, BookDTO.class);
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    @ApiOperation("Update a book, optionally only if it still matches the If-Match header")
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO bookDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ifMatch != null && !ETags.matches(ifMatch, book.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified");
+        }
+
+        book.setAuthor(bookDTO.getAuthor());
+        book.setTitle(bookDTO.getTitle());
+        book = bookService.update(book);
+        return ResponseEntity.ok().eTag(ETags.weak(book.getVersion())).body(bookMapper.toDTO(book));
     }
 
     @DeleteMapping("{id}")
@@ -90,18 +177,40 @@ public class BookController {
         bookService.delete(book);
     }
 
+    @GetMapping("{id}/stats")
+    @ApiOperation("Obtains the active and total loans of a book")
+    public BookLoanStatsDTO stats(@PathVariable Long id) {
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return loanService.getBookStats(book);
+    }
+
     @GetMapping("{id}/loans")
     @ApiOperation("Find loans by book id")
-    public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable) {
+    public PageDTO<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable, WebRequest request) {
         Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         Page<Loan> result = loanService.getLoansByBook(book, pageable);
+        if (request.checkNotModified(ETags.weak(result.getTotalElements(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return PageDTO.of(result, loanMapper::toDTO);
+    }
+
+    @GetMapping(value = "{id}/loans", params = "count=false")
+    @ApiOperation("Find loans by book id, telling whether there is a next page instead of counting the total")
+    public SliceDTO<LoanDTO> loanSliceByBook(@PathVariable Long id, Pageable pageable, WebRequest request) {
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Slice<Loan> result = loanService.getLoanSliceByBook(book, pageable);
+        if (request.checkNotModified(ETags.weak(result.hasNext(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return SliceDTO.of(result, loanMapper::toDTO);
+    }
 
-        List<LoanDTO> list = result.getContent().stream().map(loan -> {
-            BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
-            LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-            loanDTO.setBook(bookDTO);
-            return loanDTO;
-        }).collect(Collectors.toList());
-        return new PageImpl<>(list, pageable, result.getTotalElements());
+    private static void checkSortProperties(Pageable pageRequest) {
+        for (Sort.Order order : pageRequest.getSort()) {
+            if (!SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort property");
+            }
+        }
     }
 }
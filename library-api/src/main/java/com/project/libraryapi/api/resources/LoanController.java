@@ -1,32 +1,56 @@
 package com.project.libraryapi.api.resources;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import com.project.libraryapi.api.dtos.BookDTO;
+import javax.validation.Valid;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.dtos.CursorPageDTO;
+import com.project.libraryapi.api.dtos.LoanBulkCheckoutDTO;
+import com.project.libraryapi.api.dtos.LoanBulkResultDTO;
+import com.project.libraryapi.api.dtos.LoanBulkReturnDTO;
 import com.project.libraryapi.api.dtos.LoanDTO;
 import com.project.libraryapi.api.dtos.LoanFilterDTO;
+import com.project.libraryapi.api.dtos.LoanStatsDTO;
+import com.project.libraryapi.api.dtos.PageDTO;
 import com.project.libraryapi.api.dtos.ReturnedLoanDTO;
+import com.project.libraryapi.api.dtos.SliceDTO;
+import com.project.libraryapi.api.etags.ETags;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.api.exports.LoanExportFormat;
+import com.project.libraryapi.api.mappers.LoanMapper;
+import com.project.libraryapi.api.pagination.KeysetCursors;
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
 import com.project.libraryapi.services.BookService;
 import com.project.libraryapi.services.LoanService;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -38,21 +62,71 @@ import lombok.RequiredArgsConstructor;
 @Api(tags = { "Loan API" })
 public class LoanController {
 
+    private static final List<String> CURSOR_SORT_PROPERTIES = Arrays.asList("id", "loanDate");
+
     private final LoanService loanService;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @ApiOperation("Find loans by params")
-    public Page<LoanDTO> find(LoanFilterDTO loanFilterDTO, Pageable pageRequest) {
+    public PageDTO<LoanDTO> find(LoanFilterDTO loanFilterDTO, Pageable pageRequest, WebRequest request) {
         Page<Loan> result = loanService.find(loanFilterDTO, pageRequest);
-        List<LoanDTO> list = result.getContent().stream().map(entity -> {
-            BookDTO bookDTO = modelMapper.map(entity.getBook(), BookDTO.class);
-            LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-            loanDTO.setBook(bookDTO);
-            return loanDTO;
-        }).collect(Collectors.toList());
-        return new PageImpl<>(list, pageRequest, result.getTotalElements());
+        if (request.checkNotModified(ETags.weak(result.getTotalElements(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return PageDTO.of(result, loanMapper::toDTO);
+    }
+
+    @GetMapping(params = { "count=false", "!after" })
+    @ApiOperation("Find loans by params, telling whether there is a next page instead of counting the total")
+    public SliceDTO<LoanDTO> findSlice(LoanFilterDTO loanFilterDTO, Pageable pageRequest, WebRequest request) {
+        Slice<Loan> result = loanService.findSlice(loanFilterDTO, pageRequest);
+        if (request.checkNotModified(ETags.weak(result.hasNext(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return SliceDTO.of(result, loanMapper::toDTO);
+    }
+
+    @GetMapping(params = "after")
+    @ApiOperation("Find loans by params using a cursor, without counting the total")
+    public CursorPageDTO<LoanDTO> findAfter(LoanFilterDTO loanFilterDTO, @RequestParam String after,
+            Pageable pageRequest, WebRequest request) {
+        KeysetPageRequest keysetRequest = KeysetCursors.toRequest(after, pageRequest, CURSOR_SORT_PROPERTIES,
+                Loan.class);
+        KeysetSlice<Loan> result = loanService.find(loanFilterDTO, keysetRequest);
+        if (request.checkNotModified(ETags.weak(result.isHasNext(), result.getContent(), ETags::version))) {
+            return null;
+        }
+        return KeysetCursors.toPage(result, keysetRequest, Loan::getId, loanMapper::toDTO);
+    }
+
+    @GetMapping("stats")
+    @ApiOperation("Obtains the active and total loans of every book")
+    public LoanStatsDTO stats() {
+        return loanService.getStats();
+    }
+
+    @GetMapping("export")
+    @ApiOperation("Export loans by params as csv or ndjson")
+    public ResponseEntity<StreamingResponseBody> export(LoanFilterDTO loanFilterDTO,
+            @RequestParam(defaultValue = "csv") String format) {
+        LoanExportFormat exportFormat;
+        try {
+            exportFormat = LoanExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format");
+        }
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            loanService.export(loanFilterDTO, exportFormat.writer(writer, objectMapper));
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=loans." + format.toLowerCase())
+                .body(body);
     }
 
     @PostMapping
@@ -67,11 +141,26 @@ public class LoanController {
         return loan.getId();
     }
 
+    @PostMapping("checkouts")
+    @ApiOperation("Create loans of many books for one customer")
+    public List<LoanBulkResultDTO> checkout(@RequestBody @Valid LoanBulkCheckoutDTO checkoutDTO) {
+        return loanService.checkout(checkoutDTO);
+    }
+
+    @PostMapping("returns")
+    @ApiOperation("Return many loans by id")
+    public List<LoanBulkResultDTO> returnBooks(@RequestBody @Valid LoanBulkReturnDTO returnDTO) {
+        return loanService.returnLoans(returnDTO.getIds());
+    }
+
     @PatchMapping("{id}")
     @ApiOperation("Update loan status by id")
     public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO returnedLoanDTO) {
         Loan loan = loanService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(returnedLoanDTO.getReturned());
-        loanService.update(loan);
+        if (Boolean.TRUE.equals(returnedLoanDTO.getReturned())) {
+            loanService.returnLoan(loan);
+        } else if (Boolean.TRUE.equals(loan.getReturned())) {
+            throw new BusinessException("Returned loan can not be reopened");
+        }
     }
 }
@@ -0,0 +1,11 @@
+package com.project.libraryapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS_BY_ISBN = "books-by-isbn";
+}
@@ -0,0 +1,102 @@
+package com.project.libraryapi.config;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Times every controller, service and repository call so a latency regression
+ * can be traced to a layer. Timers are tagged with the class, the method, the
+ * outcome and the exception thrown; histograms and SLO buckets are configured
+ * per layer through the management.metrics.distribution properties. Each timer
+ * is registered once and kept by layer, class, method and exception, so a call
+ * only pays for a map lookup.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class LayerMetricsAspect {
+
+    public static final String CONTROLLER_TIMER = "library.controller";
+    public static final String SERVICE_TIMER = "library.service";
+    public static final String REPOSITORY_TIMER = "library.repository";
+
+    private static final String BASE_PACKAGE = "com.project.libraryapi.";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("within(com.project.libraryapi.api.resources..*) "
+            + "&& @within(org.springframework.web.bind.annotation.RestController)")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(CONTROLLER_TIMER, joinPoint);
+    }
+
+    @Around("within(com.project.libraryapi.services..*)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint);
+    }
+
+    /**
+     * Matches the Spring Data repository interfaces, which the generated proxies
+     * implement, but not the custom fragments they delegate to.
+     */
+    @Around("within(com.project.libraryapi.models.repositories.*Repository+)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(timers.computeIfAbsent(new TimerKey(name, joinPoint.getTarget().getClass(),
+                    joinPoint.getSignature().getName(), exception), this::register));
+        }
+    }
+
+    private Timer register(TimerKey key) {
+        return Timer.builder(key.getName()).tag("class", classTag(key.getType())).tag("method", key.getMethod())
+                .tag("outcome", "none".equals(key.getException()) ? "success" : "error")
+                .tag("exception", key.getException()).register(meterRegistry);
+    }
+
+    /**
+     * Repositories are JDK proxies, so they are named after the application
+     * interface they implement rather than the generated proxy class.
+     */
+    private String classTag(Class<?> type) {
+        if (Proxy.isProxyClass(type)) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate.getName().startsWith(BASE_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+        }
+        return ClassUtils.getUserClass(type).getSimpleName();
+    }
+
+    @Value
+    private static class TimerKey {
+        String name;
+        Class<?> type;
+        String method;
+        String exception;
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.libraryapi.config;
+
+import java.util.Collections;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Turns open session in view off when read replicas are configured. A session held
+ * for the whole request would keep the connection of its first transaction, so a
+ * write after a read-only lookup would go to the replica.
+ */
+public class ReadReplicaEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String REPLICA_URL = "application.datasource.replicas[0].url";
+    static final String OPEN_IN_VIEW = "spring.jpa.open-in-view";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.containsProperty(REPLICA_URL)) {
+            environment.getPropertySources().addFirst(new MapPropertySource("readReplicas",
+                    Collections.singletonMap(OPEN_IN_VIEW, "false")));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.project.libraryapi.config;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import com.project.libraryapi.models.entities.Book;
+
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rebuilds the book index from the database once every bean is created, before the web server starts taking
+ * requests, so no search runs against a half-built index. An index that already holds as many books as the database
+ * is kept as it is.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.search.reindex-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexConfig implements SmartInitializingSingleton {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+            long books = entityManager.createQuery("select count(b) from Book b", Long.class).getSingleResult();
+            int indexed = fullTextEntityManager.createFullTextQuery(fullTextEntityManager.getSearchFactory()
+                    .buildQueryBuilder().forEntity(Book.class).get().all().createQuery(), Book.class).getResultSize();
+            if (indexed == books) {
+                log.info("book search index is up to date with {} books", books);
+                return;
+            }
+
+            log.info("rebuilding book search index: {} books indexed, {} in the database", indexed, books);
+            fullTextEntityManager.createIndexer(Book.class).startAndWait();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Book search index rebuild was interrupted", ex);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
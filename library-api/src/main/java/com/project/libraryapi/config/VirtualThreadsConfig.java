@@ -0,0 +1,56 @@
+package com.project.libraryapi.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskSchedulerBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in ({@code application.threads.virtual=true}, Java 21 or later) execution
+ * of servlet requests, {@code @Scheduled} jobs and async work on virtual threads.
+ * Tomcat no longer caps concurrent requests at its thread pool size, so the
+ * Hikari pool becomes the limit on concurrent database work and requests queue
+ * on it for up to {@code spring.datasource.hikari.connection-timeout}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadsConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tomcatVirtualThreadExecutor() {
+        log.info("serving requests on virtual threads");
+        return VirtualThreads.executor("http-virtual-");
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatVirtualThreads(
+            ExecutorService tomcatVirtualThreadExecutor) {
+        return factory -> factory
+                .addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(tomcatVirtualThreadExecutor));
+    }
+
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.executor("task-virtual-"));
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(TaskSchedulerBuilder builder) {
+        ThreadPoolTaskScheduler scheduler = builder.build();
+        scheduler.setThreadFactory(VirtualThreads.factory("scheduling-virtual-"));
+        return scheduler;
+    }
+}
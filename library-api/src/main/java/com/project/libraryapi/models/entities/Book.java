@@ -2,6 +2,7 @@ package com.project.libraryapi.models.entities;
 
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -9,7 +10,33 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.apache.lucene.analysis.core.KeywordTokenizerFactory;
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.TruncateTokenFilterFactory;
+import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.search.annotations.Analyze;
+import org.hibernate.search.annotations.Analyzer;
+import org.hibernate.search.annotations.AnalyzerDef;
+import org.hibernate.search.annotations.AnalyzerDefs;
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Fields;
+import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.Normalizer;
+import org.hibernate.search.annotations.NormalizerDef;
+import org.hibernate.search.annotations.Parameter;
+import org.hibernate.search.annotations.SortableField;
+import org.hibernate.search.annotations.TokenFilterDef;
+import org.hibernate.search.annotations.TokenizerDef;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,22 +48,76 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
+@BatchSize(size = 50)
+@Table(uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"))
+@Indexed
+@AnalyzerDefs({
+        @AnalyzerDef(name = Book.TEXT_INDEX_ANALYZER, tokenizer = @TokenizerDef(factory = StandardTokenizerFactory.class),
+                filters = { @TokenFilterDef(factory = LowerCaseFilterFactory.class),
+                        @TokenFilterDef(factory = ASCIIFoldingFilterFactory.class),
+                        @TokenFilterDef(factory = EdgeNGramFilterFactory.class, params = {
+                                @Parameter(name = "minGramSize", value = "1"),
+                                @Parameter(name = "maxGramSize", value = Book.MAX_PREFIX_LENGTH) }) }),
+        @AnalyzerDef(name = Book.TEXT_QUERY_ANALYZER, tokenizer = @TokenizerDef(factory = StandardTokenizerFactory.class),
+                filters = { @TokenFilterDef(factory = LowerCaseFilterFactory.class),
+                        @TokenFilterDef(factory = ASCIIFoldingFilterFactory.class),
+                        @TokenFilterDef(factory = TruncateTokenFilterFactory.class, params = {
+                                @Parameter(name = "prefixLength", value = Book.MAX_PREFIX_LENGTH) }) }),
+        @AnalyzerDef(name = Book.ISBN_INDEX_ANALYZER, tokenizer = @TokenizerDef(factory = KeywordTokenizerFactory.class),
+                filters = { @TokenFilterDef(factory = LowerCaseFilterFactory.class),
+                        @TokenFilterDef(factory = EdgeNGramFilterFactory.class, params = {
+                                @Parameter(name = "minGramSize", value = "1"),
+                                @Parameter(name = "maxGramSize", value = Book.MAX_PREFIX_LENGTH) }) }),
+        @AnalyzerDef(name = Book.ISBN_QUERY_ANALYZER, tokenizer = @TokenizerDef(factory = KeywordTokenizerFactory.class),
+                filters = { @TokenFilterDef(factory = LowerCaseFilterFactory.class),
+                        @TokenFilterDef(factory = TruncateTokenFilterFactory.class, params = {
+                                @Parameter(name = "prefixLength", value = Book.MAX_PREFIX_LENGTH) }) }) })
+@NormalizerDef(name = Book.SORT_NORMALIZER, filters = { @TokenFilterDef(factory = LowerCaseFilterFactory.class),
+        @TokenFilterDef(factory = ASCIIFoldingFilterFactory.class) })
 public class Book {
 
+    public static final String TEXT_INDEX_ANALYZER = "book_text_index";
+    public static final String TEXT_QUERY_ANALYZER = "book_text_query";
+    public static final String ISBN_INDEX_ANALYZER = "book_isbn_index";
+    public static final String ISBN_QUERY_ANALYZER = "book_isbn_query";
+    public static final String SORT_NORMALIZER = "book_sort";
+    // the longest prefix indexed for a word or isbn; longer query terms are cut to it so they still match
+    public static final String MAX_PREFIX_LENGTH = "20";
+    public static final String ISBN_CONSTRAINT = "uk_book_isbn";
+    public static final String CACHE_REGION = "library.book";
+    public static final String BY_ISBN_CACHE_REGION = "library.book-by-isbn";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
+    @Field(name = "id_sort", analyze = Analyze.NO)
+    @SortableField(forField = "id_sort")
     private Long id;
 
     @Column
+    @Fields({ @Field(analyzer = @Analyzer(definition = TEXT_INDEX_ANALYZER)),
+            @Field(name = "title_sort", normalizer = @Normalizer(definition = SORT_NORMALIZER)) })
+    @SortableField(forField = "title_sort")
     private String title;
 
     @Column
+    @Fields({ @Field(analyzer = @Analyzer(definition = TEXT_INDEX_ANALYZER)),
+            @Field(name = "author_sort", normalizer = @Normalizer(definition = SORT_NORMALIZER)) })
+    @SortableField(forField = "author_sort")
     private String author;
 
     @Column
+    @Fields({ @Field(analyzer = @Analyzer(definition = ISBN_INDEX_ANALYZER)),
+            @Field(name = "isbn_sort", normalizer = @Normalizer(definition = SORT_NORMALIZER)) })
+    @SortableField(forField = "isbn_sort")
     private String isbn;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
 }
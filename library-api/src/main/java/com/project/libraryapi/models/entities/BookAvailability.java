@@ -0,0 +1,37 @@
+package com.project.libraryapi.models.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Whether a book can be checked out and how many times it was. Kept apart from
+ * {@link Book} so the conditional updates on checkout and return never touch the
+ * cached book row.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_availability")
+public class BookAvailability {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(nullable = false)
+    private Boolean available;
+
+    // incremented by the same statement that takes the book, so the count never has to scan the loans
+    @Column(name = "total_loans", nullable = false)
+    @Builder.Default
+    private Long totalLoans = 0l;
+}
@@ -0,0 +1,5 @@
+package com.project.libraryapi.models.entities;
+
+public enum EmailOutboxStatus {
+    PENDING, SENDING, SENT, FAILED
+}
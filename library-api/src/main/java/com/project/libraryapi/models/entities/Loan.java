@@ -7,9 +7,16 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +28,9 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(indexes = { @Index(name = "idx_loan_book_returned", columnList = "book_id, returned"),
+        @Index(name = "idx_loan_loan_date_returned", columnList = "loan_date, returned"),
+        @Index(name = "idx_loan_returned_customer_email", columnList = "returned, customer_email, id") })
 public class Loan {
 
     @Id
@@ -34,13 +43,28 @@ public class Loan {
     @Column(name = "customer_email")
     private String customerEmail;
 
+    // loaded by id rather than joined, so it is served from the second-level cache
     @JoinColumn(name = "book_id")
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     private Book book;
 
-    @Column
+    @Column(name = "loan_date")
     private LocalDate loanDate;
 
-    @Column
-    private Boolean returned;
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean returned = false;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeReturned() {
+        if (returned == null) {
+            returned = false;
+        }
+    }
 }
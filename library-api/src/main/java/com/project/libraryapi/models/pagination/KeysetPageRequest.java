@@ -0,0 +1,39 @@
+package com.project.libraryapi.models.pagination;
+
+import org.springframework.data.domain.Sort;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Position of a seek (keyset) page: rows strictly after ({@code lastValue}, {@code lastId}) in the order of
+ * {@code property} then {@code id}. A request without {@code lastId} starts from the first row.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageRequest {
+
+    public static final String ID = "id";
+
+    private String property;
+
+    private Sort.Direction direction;
+
+    private String lastValue;
+
+    private Long lastId;
+
+    private int size;
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    public boolean isSortedById() {
+        return ID.equals(property);
+    }
+}
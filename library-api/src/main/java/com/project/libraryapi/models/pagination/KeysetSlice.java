@@ -0,0 +1,21 @@
+package com.project.libraryapi.models.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final boolean hasNext;
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> converter) {
+        return new KeysetSlice<>(content.stream().map(converter).collect(Collectors.toList()), hasNext);
+    }
+}
@@ -0,0 +1,12 @@
+package com.project.libraryapi.models.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LateLoanRow {
+
+    private Long id;
+    private String customerEmail;
+}
@@ -0,0 +1,18 @@
+package com.project.libraryapi.models.projections;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LoanExportRow {
+
+    private Long id;
+    private String isbn;
+    private String customer;
+    private String customerEmail;
+    private LocalDate loanDate;
+    private Boolean returned;
+}
@@ -0,0 +1,13 @@
+package com.project.libraryapi.models.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LoanReturnRow {
+
+    private Long id;
+    private Long bookId;
+    private Boolean returned;
+}
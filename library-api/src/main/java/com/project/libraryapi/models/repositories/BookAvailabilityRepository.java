@@ -0,0 +1,36 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.Collection;
+import java.util.Set;
+
+import com.project.libraryapi.models.entities.BookAvailability;
+import com.project.libraryapi.models.projections.LoanTotalsRow;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BookAvailabilityRepository
+        extends JpaRepository<BookAvailability, Long>, BookAvailabilityRepositoryCustom {
+
+    /**
+     * Takes the book if it is available, counting the loan. Returns 0 when it is
+     * already loaned or its availability was never recorded.
+     */
+    @Modifying
+    @Query("update BookAvailability a set a.available = false, a.totalLoans = a.totalLoans + 1 "
+            + "where a.bookId = :bookId and a.available = true")
+    int checkout(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query("update BookAvailability a set a.available = true where a.bookId = :bookId and a.available = false")
+    int release(@Param("bookId") Long bookId);
+
+    @Query("select a.bookId from BookAvailability a where a.bookId in :bookIds")
+    Set<Long> findRecordedBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("select new com.project.libraryapi.models.projections.LoanTotalsRow("
+            + "sum(case when a.available = false then 1l else 0l end), sum(a.totalLoans)) from BookAvailability a")
+    LoanTotalsRow sumLoanTotals();
+}
@@ -0,0 +1,22 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.List;
+
+/**
+ * Batched versions of the availability updates, one JDBC batch per call. Each returns the update count of every
+ * book id in order, so repeating a book id in the same call takes or frees it only once.
+ */
+public interface BookAvailabilityRepositoryCustom {
+
+    int[] checkoutAll(List<Long> bookIds);
+
+    int[] releaseAll(List<Long> bookIds);
+
+    /**
+     * Records the availability and loan count of books that have none yet,
+     * derived from their loans, and skips the books already recorded. Locks the
+     * book rows first, so it never fails on a concurrent recording of the same
+     * book and can run in any transaction.
+     */
+    int[] recordAll(List<Long> bookIds);
+}
@@ -0,0 +1,43 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class BookAvailabilityRepositoryCustomImpl implements BookAvailabilityRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] checkoutAll(List<Long> bookIds) {
+        return IdBatches.update(jdbcTemplate,
+                "update book_availability set available = false, total_loans = total_loans + 1 "
+                        + "where book_id = ? and available = true", bookIds);
+    }
+
+    @Override
+    public int[] releaseAll(List<Long> bookIds) {
+        return IdBatches.update(jdbcTemplate,
+                "update book_availability set available = true where book_id = ? and available = false", bookIds);
+    }
+
+    @Override
+    public int[] recordAll(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return new int[0];
+        }
+        // concurrent first checkouts of a book queue on its row here, so the later one finds the availability
+        // recorded and skips it instead of failing on the primary key
+        jdbcTemplate.queryForList("select id from book where id in ("
+                + String.join(", ", Collections.nCopies(bookIds.size(), "?")) + ") order by id for update", Long.class,
+                bookIds.toArray());
+        return IdBatches.update(jdbcTemplate, "insert into book_availability (book_id, available, total_loans) "
+                + "select b.id, not exists (select 1 from loan l where l.book_id = b.id and l.returned = false), "
+                + "(select count(*) from loan l where l.book_id = b.id) from book b where b.id = ? "
+                + "and not exists (select 1 from book_availability a where a.book_id = b.id)", bookIds);
+    }
+}
@@ -0,0 +1,34 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.List;
+
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface BookRepositoryCustom {
+
+    KeysetSlice<Book> findAll(Specification<Book> spec, KeysetPageRequest request);
+
+    Page<Book> search(Book filter, Pageable pageable);
+
+    Slice<Book> searchSlice(Book filter, Pageable pageable);
+
+    /**
+     * Seek page of the books matching the filter in the index, like {@link #search(Book, Pageable)}. Only sorted by
+     * id, the one key the index can seek on, so the request's sort property is ignored.
+     */
+    KeysetSlice<Book> searchAfter(Book filter, KeysetPageRequest request);
+
+    /**
+     * Loads the books of the given ids in the order of the ids, with {@code null} where there is no book. Books in the
+     * persistence context or the second-level cache are taken from there, the others are read with one {@code in}
+     * query per {@code batchSize} ids.
+     */
+    List<Book> findAllInOrder(List<Long> ids, int batchSize);
+}
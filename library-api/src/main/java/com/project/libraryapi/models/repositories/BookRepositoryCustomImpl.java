@@ -0,0 +1,185 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SortField;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.search.exception.EmptyQueryException;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.FullTextQuery;
+import org.hibernate.search.jpa.Search;
+import org.hibernate.search.query.dsl.BooleanJunction;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public KeysetSlice<Book> findAll(Specification<Book> spec, KeysetPageRequest request) {
+        return KeysetQuery.execute(entityManager, Book.class, spec, request);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<Book> search(Book filter, Pageable pageable) {
+        FullTextQuery fullTextQuery = searchQuery(filter, pageable);
+        if (fullTextQuery == null) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        List<Book> content = fullTextQuery.getResultList();
+        return new PageImpl<>(content, pageable, fullTextQuery.getResultSize());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Slice<Book> searchSlice(Book filter, Pageable pageable) {
+        FullTextQuery fullTextQuery = searchQuery(filter, pageable);
+        if (fullTextQuery == null) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        List<Book> content = fullTextQuery.getResultList();
+        // the hit count comes from the index along with the hits, there is no count query to skip
+        return new SliceImpl<>(content, pageable,
+                pageable.getOffset() + content.size() < fullTextQuery.getResultSize());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public KeysetSlice<Book> searchAfter(Book filter, KeysetPageRequest request) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        QueryBuilder queryBuilder = queryBuilder(fullTextEntityManager);
+        BooleanJunction<?> junction = filterJunction(queryBuilder, filter);
+        if (junction == null) {
+            return new KeysetSlice<>(Collections.emptyList(), false);
+        }
+        boolean ascending = request.getDirection() != Sort.Direction.DESC;
+        if (!request.isFirstPage()) {
+            junction.must(ascending
+                    ? queryBuilder.range().onField("id_sort").above(request.getLastId()).excludeLimit().createQuery()
+                    : queryBuilder.range().onField("id_sort").below(request.getLastId()).excludeLimit().createQuery());
+        }
+
+        FullTextQuery fullTextQuery = fullTextEntityManager.createFullTextQuery(toQuery(queryBuilder, junction),
+                Book.class);
+        fullTextQuery.setMaxResults(request.getSize() + 1);
+        fullTextQuery.setSort(new org.apache.lucene.search.Sort(
+                new SortField("id_sort", SortField.Type.LONG, !ascending)));
+        List<Book> rows = fullTextQuery.getResultList();
+        boolean hasNext = rows.size() > request.getSize();
+        return new KeysetSlice<>(hasNext ? rows.subList(0, request.getSize()) : rows, hasNext);
+    }
+
+    /**
+     * The index query of the filter, or {@code null} when a filter has no term left after analysis.
+     */
+    private FullTextQuery searchQuery(Book filter, Pageable pageable) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        QueryBuilder queryBuilder = queryBuilder(fullTextEntityManager);
+        BooleanJunction<?> junction = filterJunction(queryBuilder, filter);
+        if (junction == null) {
+            return null;
+        }
+
+        FullTextQuery fullTextQuery = fullTextEntityManager.createFullTextQuery(toQuery(queryBuilder, junction),
+                Book.class);
+        fullTextQuery.setFirstResult((int) pageable.getOffset());
+        fullTextQuery.setMaxResults(pageable.getPageSize());
+        if (pageable.getSort().isSorted()) {
+            fullTextQuery.setSort(toLuceneSort(pageable.getSort()));
+        }
+        return fullTextQuery;
+    }
+
+    @Override
+    public List<Book> findAllInOrder(List<Long> ids, int batchSize) {
+        return entityManager.unwrap(Session.class).byMultipleIds(Book.class).with(CacheMode.NORMAL)
+                .withBatchSize(batchSize).multiLoad(ids);
+    }
+
+    private QueryBuilder queryBuilder(FullTextEntityManager fullTextEntityManager) {
+        return fullTextEntityManager.getSearchFactory().buildQueryBuilder().forEntity(Book.class)
+                .overridesForField("title", Book.TEXT_QUERY_ANALYZER)
+                .overridesForField("author", Book.TEXT_QUERY_ANALYZER)
+                .overridesForField("isbn", Book.ISBN_QUERY_ANALYZER).get();
+    }
+
+    /**
+     * The terms of every filter, all required, or {@code null} when a filter has no term left after analysis (e.g.
+     * punctuation only), as no book can match it.
+     */
+    private BooleanJunction<?> filterJunction(QueryBuilder queryBuilder, Book filter) {
+        BooleanJunction<?> junction = queryBuilder.bool();
+        if (!addTerms(junction, queryBuilder, "title", filter.getTitle())
+                || !addTerms(junction, queryBuilder, "author", filter.getAuthor())
+                || !addTerms(junction, queryBuilder, "isbn", filter.getIsbn())) {
+            return null;
+        }
+        return junction;
+    }
+
+    private Query toQuery(QueryBuilder queryBuilder, BooleanJunction<?> junction) {
+        return junction.isEmpty() ? queryBuilder.all().createQuery() : junction.createQuery();
+    }
+
+    /**
+     * Requires every term of the value on the field. Returns false when the value is not blank but none of its terms
+     * survives analysis.
+     */
+    private boolean addTerms(BooleanJunction<?> junction, QueryBuilder queryBuilder, String field, String value) {
+        if (!StringUtils.hasText(value)) {
+            return true;
+        }
+        boolean added = false;
+        for (String term : value.trim().split("\\s+")) {
+            try {
+                junction.must(queryBuilder.keyword().onField(field).matching(term).createQuery());
+                added = true;
+            } catch (EmptyQueryException ex) {
+                // the term has no indexable token (e.g. punctuation only)
+            }
+        }
+        return added;
+    }
+
+    private org.apache.lucene.search.Sort toLuceneSort(Sort sort) {
+        List<SortField> fields = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            boolean reverse = order.isDescending();
+            switch (order.getProperty()) {
+                case "id":
+                    fields.add(new SortField("id_sort", SortField.Type.LONG, reverse));
+                    break;
+                case "title":
+                case "author":
+                case "isbn":
+                    fields.add(new SortField(order.getProperty() + "_sort", SortField.Type.STRING, reverse));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            }
+        }
+        fields.add(SortField.FIELD_SCORE);
+        return new org.apache.lucene.search.Sort(fields.toArray(new SortField[0]));
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Tells which constraint a failed write broke. Hibernate reads the name out of the database message, so it comes
+ * decorated by some databases (e.g. {@code PUBLIC.UK_BOOK_ISBN_INDEX_1} on H2) and is matched ignoring case.
+ */
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean isViolationOf(DataIntegrityViolationException ex, String constraintName) {
+        String expected = constraintName.toLowerCase(Locale.ROOT);
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String name = ((ConstraintViolationException) cause).getConstraintName();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(expected);
+            }
+        }
+        return false;
+    }
+}
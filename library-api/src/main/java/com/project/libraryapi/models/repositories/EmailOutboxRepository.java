@@ -0,0 +1,46 @@
+package com.project.libraryapi.models.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import com.project.libraryapi.models.entities.EmailOutbox;
+import com.project.libraryapi.models.entities.EmailOutboxStatus;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    @Query("select e.id from EmailOutbox e where e.status = com.project.libraryapi.models.entities.EmailOutboxStatus.PENDING "
+            + "and e.nextAttemptAt <= :now order by e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims the given messages that are still pending. Only rows tagged with the
+     * token belong to the caller, so concurrent dispatchers never send the same row.
+     * The version is bumped so a worker still holding an older claim cannot save over it.
+     */
+    @Modifying
+    @Query("update EmailOutbox e set e.status = com.project.libraryapi.models.entities.EmailOutboxStatus.SENDING, "
+            + "e.claimToken = :token, e.claimedAt = :now, e.version = e.version + 1 where e.id in :ids "
+            + "and e.status = com.project.libraryapi.models.entities.EmailOutboxStatus.PENDING")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    /**
+     * Puts back messages whose worker died while sending them. The version is bumped
+     * so the worker, if it was only slow, fails to save its results over the next claim.
+     */
+    @Modifying
+    @Query("update EmailOutbox e set e.status = com.project.libraryapi.models.entities.EmailOutboxStatus.PENDING, "
+            + "e.claimToken = null, e.version = e.version + 1 "
+            + "where e.status = com.project.libraryapi.models.entities.EmailOutboxStatus.SENDING and e.claimedAt < :claimedBefore")
+    int releaseStale(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    long countByStatus(EmailOutboxStatus status);
+}
@@ -0,0 +1,33 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs a statement taking a single id once per id as one JDBC batch. The ids are sent in ascending order, so two
+ * batches touching the same rows lock them in the same order instead of deadlocking, and the update counts are
+ * returned in the order of the given ids.
+ */
+final class IdBatches {
+
+    private IdBatches() {
+    }
+
+    static int[] update(JdbcTemplate jdbcTemplate, String sql, List<Long> ids) {
+        // stable, so a repeated id keeps its first position ahead of the others
+        List<Integer> order = IntStream.range(0, ids.size()).boxed().sorted(Comparator.comparing(ids::get))
+                .collect(Collectors.toList());
+        int[] sortedCounts = jdbcTemplate.batchUpdate(sql,
+                order.stream().map(position -> new Object[] { ids.get(position) }).collect(Collectors.toList()));
+
+        int[] counts = new int[ids.size()];
+        for (int i = 0; i < order.size(); i++) {
+            counts[order.get(i)] = sortedCounts[i];
+        }
+        return counts;
+    }
+}
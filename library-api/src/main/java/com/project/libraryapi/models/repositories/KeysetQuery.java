@@ -0,0 +1,90 @@
+package com.project.libraryapi.models.repositories;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+final class KeysetQuery {
+
+    private KeysetQuery() {
+    }
+
+    static <T> KeysetSlice<T> execute(EntityManager entityManager, Class<T> type, Specification<T> spec,
+            KeysetPageRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+
+        Path<Comparable<Object>> sortPath = root.get(request.getProperty());
+        Path<Long> idPath = root.get(KeysetPageRequest.ID);
+        boolean ascending = request.getDirection() != Sort.Direction.DESC;
+
+        if (!request.isFirstPage()) {
+            predicates.add(after(cb, sortPath, idPath, ascending, request));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (!request.isSortedById()) {
+            orders.add(ascending ? cb.asc(sortPath) : cb.desc(sortPath));
+        }
+        orders.add(ascending ? cb.asc(idPath) : cb.desc(idPath));
+
+        query.select(root).where(predicates.toArray(new Predicate[0])).orderBy(orders);
+
+        List<T> rows = entityManager.createQuery(query).setMaxResults(request.getSize() + 1).getResultList();
+        boolean hasNext = rows.size() > request.getSize();
+        return new KeysetSlice<>(hasNext ? rows.subList(0, request.getSize()) : rows, hasNext);
+    }
+
+    private static Predicate after(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Long> idPath,
+            boolean ascending, KeysetPageRequest request) {
+        Long lastId = request.getLastId();
+        Predicate afterId = ascending ? cb.greaterThan(idPath, lastId) : cb.lessThan(idPath, lastId);
+        if (request.isSortedById()) {
+            return afterId;
+        }
+
+        Comparable<Object> lastValue = convert(sortPath.getJavaType(), request.getLastValue());
+        Predicate afterValue = ascending ? cb.greaterThan(sortPath, lastValue) : cb.lessThan(sortPath, lastValue);
+        return cb.or(afterValue, cb.and(cb.equal(sortPath, lastValue), afterId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> convert(Class<?> javaType, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cursor value can't be null");
+        }
+        if (String.class.equals(javaType)) {
+            return (Comparable<Object>) (Comparable<?>) value;
+        }
+        if (Long.class.equals(javaType)) {
+            return (Comparable<Object>) (Comparable<?>) Long.valueOf(value);
+        }
+        if (LocalDate.class.equals(javaType)) {
+            return (Comparable<Object>) (Comparable<?>) LocalDate.parse(value);
+        }
+        throw new IllegalArgumentException("Unsupported cursor type: " + javaType.getSimpleName());
+    }
+}
@@ -1,29 +1,72 @@
 package com.project.libraryapi.models.repositories;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.projections.LateLoanRow;
+import com.project.libraryapi.models.projections.LoanReturnRow;
+import com.project.libraryapi.models.projections.LoanTotalsRow;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
 
-    @Query(value = "select case when (count(l.id) > 0) then true else false end "
-            + "from Loan l where l.book = :book and (l.returned is null or l.returned is false)")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
+    boolean existsByBookAndReturnedFalse(Book book);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
+    long countByBook(Book book);
+
+    // detaches the loans already loaded, so the stale returned flag and version are not written back at commit
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.returned = true, l.version = l.version + 1 where l.id = :id and l.returned = false")
+    int markReturned(@Param("id") Long id);
+
+    @Query(value = "select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer",
+            countQuery = "select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
     Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer,
             Pageable pageable);
 
-    Page<Loan> findByBook(Book book, Pageable pageable);
+    // a Slice reads one row past the page instead of running the count query
+    @Query("select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer")
+    Slice<Loan> findSliceByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer,
+            Pageable pageable);
+
+    @Query(value = "select l from Loan as l join fetch l.book where l.book = :book",
+            countQuery = "select count(l) from Loan as l where l.book = :book")
+    Page<Loan> findByBook(@Param("book") Book book, Pageable pageable);
+
+    @Query("select l from Loan as l join fetch l.book where l.book = :book")
+    Slice<Loan> findSliceByBook(@Param("book") Book book, Pageable pageable);
+
+    /**
+     * Late loans with an email, ordered by email and id so the loans of a customer come together, starting after the
+     * given email and id.
+     */
+    @Query(value = "select new com.project.libraryapi.models.projections.LateLoanRow(l.id, l.customerEmail) "
+            + "from Loan as l where l.loanDate <= :loanDate and l.returned = false and l.customerEmail is not null "
+            + "and (l.customerEmail > :afterEmail or (l.customerEmail = :afterEmail and l.id > :afterId)) "
+            + "order by l.customerEmail, l.id")
+    List<LateLoanRow> findLateLoans(@Param("loanDate") LocalDate loanDate, @Param("afterEmail") String afterEmail,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Loan counters of the books whose availability was never recorded, which only
+     * have the loans made before it was tracked.
+     */
+    @Query("select new com.project.libraryapi.models.projections.LoanTotalsRow("
+            + "sum(case when l.returned = false then 1l else 0l end), count(l)) from Loan as l "
+            + "where not exists (select a from BookAvailability a where a.bookId = l.book.id)")
+    LoanTotalsRow sumUnrecordedLoanTotals();
 
-    @Query(value = "select l from Loan as l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false)")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
-}
\ No newline at end of file
+    @Query("select new com.project.libraryapi.models.projections.LoanReturnRow(l.id, l.book.id, l.returned) "
+            + "from Loan as l where l.id in :ids")
+    List<LoanReturnRow> findReturnRows(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,35 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.models.projections.LoanExportRow;
+
+import org.springframework.data.jpa.domain.Specification;
+
+public interface LoanRepositoryCustom {
+
+    KeysetSlice<Loan> findAll(Specification<Loan> spec, KeysetPageRequest request);
+
+    /**
+     * Streams the loans matching the isbn or the customer (every loan when both are
+     * null) straight from a forward-only JDBC cursor. Must be consumed and closed
+     * inside a transaction.
+     */
+    Stream<LoanExportRow> streamForExport(String isbn, String customer, int fetchSize);
+
+    /**
+     * Marks the loans as returned in one JDBC batch. The update count of each id
+     * is 1 only for the call that actually returned it.
+     */
+    int[] markAllReturned(List<Long> ids);
+
+    /**
+     * Inserts new loans in one JDBC batch and sets their generated ids. The loans
+     * are not attached to the persistence context.
+     */
+    void insertAll(List<Loan> loans);
+}
@@ -0,0 +1,105 @@
+package com.project.libraryapi.models.repositories;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+
+import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.models.projections.LoanExportRow;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    private static final String INSERT_LOAN = "insert into loan (book_id, customer, customer_email, loan_date, "
+            + "returned, version) values (?, ?, ?, ?, false, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public KeysetSlice<Loan> findAll(Specification<Loan> spec, KeysetPageRequest request) {
+        return KeysetQuery.execute(entityManager, Loan.class, spec, request);
+    }
+
+    @Override
+    public Stream<LoanExportRow> streamForExport(String isbn, String customer, int fetchSize) {
+        List<String> predicates = new ArrayList<>();
+        if (isbn != null) {
+            predicates.add("b.isbn = :isbn");
+        }
+        if (customer != null) {
+            predicates.add("l.customer = :customer");
+        }
+
+        // a constructor projection keeps the rows out of the persistence context
+        String jpql = "select new " + LoanExportRow.class.getName()
+                + "(l.id, b.isbn, l.customer, l.customerEmail, l.loanDate, l.returned) from Loan l join l.book b"
+                + (predicates.isEmpty() ? "" : " where " + String.join(" or ", predicates)) + " order by l.id";
+
+        TypedQuery<LoanExportRow> query = entityManager.createQuery(jpql, LoanExportRow.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize).setHint(QueryHints.HINT_READONLY, true);
+        if (isbn != null) {
+            query.setParameter("isbn", isbn);
+        }
+        if (customer != null) {
+            query.setParameter("customer", customer);
+        }
+        return query.getResultStream();
+    }
+
+    @Override
+    public int[] markAllReturned(List<Long> ids) {
+        return IdBatches.update(jdbcTemplate,
+                "update loan set returned = true, version = version + 1 where id = ? and returned = false", ids);
+    }
+
+    @Override
+    public void insertAll(List<Loan> loans) {
+        if (loans.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_LOAN, new String[] { "id" })) {
+                for (Loan loan : loans) {
+                    statement.setLong(1, loan.getBook().getId());
+                    statement.setString(2, loan.getCustomer());
+                    statement.setString(3, loan.getCustomerEmail());
+                    statement.setDate(4, Date.valueOf(loan.getLoanDate()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Loan loan : loans) {
+                        if (!keys.next()) {
+                            throw new DataRetrievalFailureException("Missing generated id of a batched loan");
+                        }
+                        loan.setId(keys.getLong(1));
+                        loan.setReturned(false);
+                        loan.setVersion(0l);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.project.libraryapi.models.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+
+import org.springframework.data.jpa.domain.Specification;
+
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    public static Specification<Loan> byBookIsbnOrCustomer(String isbn, String customer) {
+        return (root, query, cb) -> {
+            Join<Loan, Book> book = root.join("book");
+            List<Predicate> predicates = new ArrayList<>();
+            if (isbn != null) {
+                predicates.add(cb.equal(book.get("isbn"), isbn));
+            }
+            if (customer != null) {
+                predicates.add(cb.equal(root.get("customer"), customer));
+            }
+            return cb.or(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
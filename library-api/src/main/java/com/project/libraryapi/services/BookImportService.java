@@ -0,0 +1,15 @@
+package com.project.libraryapi.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.project.libraryapi.api.dtos.BookImportReportDTO;
+
+public interface BookImportService {
+
+    String NDJSON = "application/x-ndjson";
+
+    String CSV = "text/csv";
+
+    BookImportReportDTO importBooks(InputStream input, String contentType) throws IOException;
+}
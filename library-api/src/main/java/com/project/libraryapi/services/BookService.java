@@ -1,18 +1,37 @@
 package com.project.libraryapi.services;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface BookService {
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    /**
+     * Like {@link #find(Book, Pageable)}, but only tells whether there is a next page instead of counting the books.
+     */
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    /**
+     * Seek page of the books. Without filters it is read from the database in the requested order; a filtered search
+     * runs on the index, which can only seek on the id, so any other sort is rejected.
+     */
+    KeysetSlice<Book> find(Book filter, KeysetPageRequest keysetRequest);
+
     Optional<Book> getById(Long id);
 
+    List<Book> getByIds(List<Long> ids);
+
+    List<Book> getByIsbns(List<String> isbns);
+
     Book save(Book book);
 
     Book update(Book book);
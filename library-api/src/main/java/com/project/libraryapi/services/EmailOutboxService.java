@@ -0,0 +1,6 @@
+package com.project.libraryapi.services;
+
+public interface EmailOutboxService {
+
+    void dispatch();
+}
@@ -2,24 +2,70 @@ package com.project.libraryapi.services;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.project.libraryapi.api.dtos.BookLoanStatsDTO;
+import com.project.libraryapi.api.dtos.LoanBulkCheckoutDTO;
+import com.project.libraryapi.api.dtos.LoanBulkResultDTO;
 import com.project.libraryapi.api.dtos.LoanFilterDTO;
+import com.project.libraryapi.api.dtos.LoanStatsDTO;
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.models.projections.LateLoanRow;
+import com.project.libraryapi.models.projections.LoanExportRow;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface LoanService {
     Loan save(Loan loan);
 
     Optional<Loan> getById(Long id);
 
-    Loan update(Loan loan);
+    /**
+     * Marks the loan as returned and frees its book. Returning an already
+     * returned loan does nothing.
+     */
+    void returnLoan(Loan loan);
+
+    /**
+     * Creates one loan per isbn for the customer in a single transaction. Unknown
+     * or already loaned books are reported in their position instead of failing
+     * the others.
+     */
+    List<LoanBulkResultDTO> checkout(LoanBulkCheckoutDTO checkout);
+
+    /**
+     * Returns the loans in a single transaction, reporting unknown and already
+     * returned loans in their position.
+     */
+    List<LoanBulkResultDTO> returnLoans(List<Long> ids);
 
     Page<Loan> find(LoanFilterDTO loanFilterDTO, Pageable pageable);
 
+    /**
+     * Like {@link #find(LoanFilterDTO, Pageable)}, without counting the loans.
+     */
+    Slice<Loan> findSlice(LoanFilterDTO loanFilterDTO, Pageable pageable);
+
+    KeysetSlice<Loan> find(LoanFilterDTO loanFilterDTO, KeysetPageRequest keysetRequest);
+
+    void export(LoanFilterDTO loanFilterDTO, Consumer<LoanExportRow> consumer);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
-    List<Loan> getAllLateLoans();
+    Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable);
+
+    List<LateLoanRow> getLateLoans(String afterEmail, Long afterId, int chunkSize);
+
+    /**
+     * The active and total loans of the book, read from the counters kept on
+     * checkout rather than counted over its loans.
+     */
+    BookLoanStatsDTO getBookStats(Book book);
+
+    LoanStatsDTO getStats();
 }
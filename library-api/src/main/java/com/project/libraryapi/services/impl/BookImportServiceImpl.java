@@ -0,0 +1,287 @@
+package com.project.libraryapi.services.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.BookImportErrorDTO;
+import com.project.libraryapi.api.dtos.BookImportReportDTO;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.models.repositories.ConstraintViolations;
+import com.project.libraryapi.services.BookImportService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final MediaType CSV_TYPE = MediaType.parseMediaType(CSV);
+    private static final MediaType NDJSON_TYPE = MediaType.parseMediaType(NDJSON);
+    private static final String DUPLICATED_ISBN = "Isbn já cadastrado";
+    private static final String REJECTED_BY_DATABASE = "Book rejected by the database";
+    // a stray quote would otherwise join the rest of the file into one record
+    private static final int MAX_CSV_RECORD_LENGTH = 64 * 1024;
+
+    private final BookRepository bookRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${application.books.import.batch-size}")
+    private int batchSize;
+
+    @Value("${application.books.import.max-reported-errors}")
+    private int maxReportedErrors;
+
+    @Override
+    public BookImportReportDTO importBooks(InputStream input, String contentType) throws IOException {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        boolean csv = CSV_TYPE.isCompatibleWith(mediaType);
+        if (!csv && !NDJSON_TYPE.isCompatibleWith(mediaType)) {
+            throw new BusinessException("Unsupported import format");
+        }
+
+        Report report = new Report();
+        List<Row> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> csvHeader = null;
+        long line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            long recordLine = line;
+            if (csv && hasOpenQuote(text)) {
+                // a quoted column may span lines: join them up to the closing quote
+                StringBuilder record = new StringBuilder(text);
+                boolean open = true;
+                String next;
+                while (open && record.length() < MAX_CSV_RECORD_LENGTH && (next = reader.readLine()) != null) {
+                    line++;
+                    record.append('\n').append(next);
+                    open ^= hasOpenQuote(next);
+                }
+                text = record.toString();
+            }
+            if (text.trim().isEmpty()) {
+                continue;
+            }
+            if (csv && csvHeader == null) {
+                csvHeader = readCsvHeader(text);
+                continue;
+            }
+
+            report.processed++;
+            BookDTO bookDTO;
+            try {
+                bookDTO = csv ? readCsvRow(csvHeader, text) : objectMapper.readValue(text, BookDTO.class);
+            } catch (IOException | IllegalArgumentException ex) {
+                report.reject(recordLine, null, Collections.singletonList("Invalid row"));
+                continue;
+            }
+
+            List<String> violations = validator.validate(bookDTO).stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage()).sorted()
+                    .collect(Collectors.toList());
+            if (!violations.isEmpty()) {
+                report.reject(recordLine, bookDTO.getIsbn(), violations);
+                continue;
+            }
+
+            batch.add(new Row(recordLine, bookDTO));
+            if (batch.size() >= batchSize) {
+                flush(batch, report);
+                batch.clear();
+            }
+        }
+        flush(batch, report);
+
+        log.info("imported {} of {} books", report.imported, report.processed);
+        return report.toDTO();
+    }
+
+    private void flush(List<Row> batch, Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Row> rowsByIsbn = new LinkedHashMap<>();
+        for (Row row : batch) {
+            if (rowsByIsbn.putIfAbsent(row.book.getIsbn(), row) != null) {
+                report.reject(row.line, row.book.getIsbn(), Collections.singletonList("Duplicated isbn in file"));
+            }
+        }
+
+        Set<String> existingIsbns = bookRepository.findExistingIsbns(rowsByIsbn.keySet());
+        List<Row> rows = new ArrayList<>();
+        for (Row row : rowsByIsbn.values()) {
+            if (existingIsbns.contains(row.book.getIsbn())) {
+                report.reject(row.line, row.book.getIsbn(), Collections.singletonList(DUPLICATED_ISBN));
+            } else {
+                rows.add(row);
+            }
+        }
+
+        try {
+            insert(rows);
+            report.imported += rows.size();
+        } catch (DataIntegrityViolationException ex) {
+            // another writer created one of these isbns after the lookup, or a row breaks another constraint:
+            // retry row by row to find it
+            for (Row row : rows) {
+                try {
+                    insert(Collections.singletonList(row));
+                    report.imported++;
+                } catch (DataIntegrityViolationException rowEx) {
+                    report.reject(row.line, row.book.getIsbn(), Collections.singletonList(
+                            ConstraintViolations.isViolationOf(rowEx, Book.ISBN_CONSTRAINT) ? DUPLICATED_ISBN
+                                    : REJECTED_BY_DATABASE));
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                bookRepository.saveAll(rows.stream().map(row -> Book.builder().title(row.book.getTitle())
+                        .author(row.book.getAuthor()).isbn(row.book.getIsbn()).build()).collect(Collectors.toList()));
+                bookRepository.flush();
+                return null;
+            });
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(String text) {
+        Map<String, Integer> header = new HashMap<>();
+        List<String> columns;
+        try {
+            columns = splitCsv(text);
+        } catch (IllegalArgumentException ex) {
+            throw new BusinessException("Invalid CSV header");
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(), i);
+        }
+        if (!header.keySet().containsAll(Arrays.asList("title", "author", "isbn"))) {
+            throw new BusinessException("CSV header must have the columns title, author and isbn");
+        }
+        return header;
+    }
+
+    private BookDTO readCsvRow(Map<String, Integer> header, String text) {
+        List<String> columns = splitCsv(text);
+        return BookDTO.builder().title(column(columns, header.get("title")))
+                .author(column(columns, header.get("author"))).isbn(column(columns, header.get("isbn"))).build();
+    }
+
+    private String column(List<String> columns, int index) {
+        return index < columns.size() ? columns.get(index).trim() : null;
+    }
+
+    // an escaped quote counts twice, so an odd count leaves a quoted column open
+    private boolean hasOpenQuote(String text) {
+        boolean open = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                open = !open;
+            }
+        }
+        return open;
+    }
+
+    private List<String> splitCsv(String text) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted column");
+        }
+        columns.add(current.toString());
+        return columns;
+    }
+
+    @AllArgsConstructor
+    private static class Row {
+        private final long line;
+        private final BookDTO book;
+    }
+
+    private class Report {
+        private long processed;
+        private long imported;
+        private long rejected;
+        private final List<BookImportErrorDTO> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+
+        private void reject(long line, String isbn, List<String> messages) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(BookImportErrorDTO.builder().line(line).isbn(isbn).errors(messages).build());
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        private BookImportReportDTO toDTO() {
+            return BookImportReportDTO.builder().processed(processed).imported(imported).rejected(rejected)
+                    .errors(errors).errorsTruncated(errorsTruncated).build();
+        }
+    }
+}
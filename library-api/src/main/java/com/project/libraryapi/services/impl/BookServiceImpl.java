@@ -1,17 +1,31 @@
 package com.project.libraryapi.services.impl;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.config.CacheConfig;
 import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
 import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.models.repositories.ConstraintViolations;
 import com.project.libraryapi.services.BookService;
 
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 
@@ -21,27 +35,93 @@ public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
 
+    @Value("${application.books.batch.max-size}")
+    private int batchMaxSize;
+
+    @Value("${application.books.batch.chunk-size}")
+    private int batchChunkSize;
+
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
-        Example<Book> example = Example.of(filter, ExampleMatcher.matching().withIgnoreCase().withIgnoreNullValues()
-                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return bookRepository.findAll(example, pageRequest);
+        if (filter.getTitle() == null && filter.getAuthor() == null && filter.getIsbn() == null) {
+            return bookRepository.findAll(pageRequest);
+        }
+        return bookRepository.search(filter, pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        if (filter.getTitle() == null && filter.getAuthor() == null && filter.getIsbn() == null) {
+            return bookRepository.findAllBy(pageRequest);
+        }
+        return bookRepository.searchSlice(filter, pageRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetSlice<Book> find(Book filter, KeysetPageRequest keysetRequest) {
+        if (filter.getTitle() == null && filter.getAuthor() == null && filter.getIsbn() == null) {
+            return bookRepository.findAll(null, keysetRequest);
+        }
+        if (!keysetRequest.isSortedById()) {
+            throw new BusinessException("A filtered search with a cursor can only be sorted by id");
+        }
+        return bookRepository.searchAfter(filter, keysetRequest);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
         return bookRepository.findById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Book> getByIds(List<Long> ids) {
+        checkBatchSize(ids);
+        return bookRepository.findAllInOrder(ids, batchChunkSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getByIsbns(List<String> isbns) {
+        checkBatchSize(isbns);
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(isbns));
+        Map<String, Book> booksByIsbn = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += batchChunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + batchChunkSize, distinct.size()));
+            bookRepository.findByIsbnIn(chunk).forEach(book -> booksByIsbn.put(book.getIsbn(), book));
+        }
+
+        List<Book> books = new ArrayList<>(isbns.size());
+        isbns.forEach(isbn -> books.add(booksByIsbn.get(isbn)));
+        return books;
+    }
+
+    private void checkBatchSize(List<?> keys) {
+        if (keys.size() > batchMaxSize) {
+            throw new BusinessException("A batch can have at most " + batchMaxSize + " books");
+        }
+    }
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#result.isbn", unless = "#result.isbn == null")
     public Book save(Book book) {
-        if (bookRepository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("Isbn já cadastrado");
+        try {
+            return bookRepository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException ex) {
+            if (ConstraintViolations.isViolationOf(ex, Book.ISBN_CONSTRAINT)) {
+                throw new BusinessException("Isbn já cadastrado");
+            }
+            throw ex;
         }
-        return bookRepository.save(book);
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn",
+            condition = "#book != null && #book.isbn != null")
     public Book update(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
@@ -50,6 +130,8 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#book.isbn",
+            condition = "#book != null && #book.isbn != null")
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
@@ -58,6 +140,8 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.BOOKS_BY_ISBN, key = "#isbn", condition = "#isbn != null",
+            unless = "#result == null")
     public Optional<Book> getBookByIsbn(String isbn) {
         return bookRepository.findByIsbn(isbn);
     }
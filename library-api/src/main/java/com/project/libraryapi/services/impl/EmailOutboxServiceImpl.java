@@ -0,0 +1,268 @@
+package com.project.libraryapi.services.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.project.libraryapi.models.entities.EmailOutbox;
+import com.project.libraryapi.models.entities.EmailOutboxStatus;
+import com.project.libraryapi.models.repositories.EmailOutboxRepository;
+import com.project.libraryapi.services.EmailOutboxService;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the email outbox. Each poll claims up to one batch per idle worker and
+ * hands it to a bounded pool; a worker sends its batch in bursts of at most one
+ * second's worth of messages, each through a single SMTP connection and paced by
+ * a shared rate limit, and reschedules failed messages with exponential backoff.
+ */
+@Service
+@Slf4j
+public class EmailOutboxServiceImpl implements EmailOutboxService, DisposableBean {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender javaMailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Semaphore idleWorkers;
+    private final RateLimiter rateLimiter;
+    private final int burstSize;
+    private final Counter sentMessages;
+    private final Counter retriedMessages;
+    private final Counter failedMessages;
+    private final AtomicLong pendingMessages = new AtomicLong();
+
+    @Value("${application.mail.email-sender}")
+    private String emailSender;
+
+    @Value("${application.mail.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${application.mail.outbox.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${application.mail.outbox.initial-backoff-ms}")
+    private long initialBackoffMs;
+
+    @Value("${application.mail.outbox.max-backoff-ms}")
+    private long maxBackoffMs;
+
+    @Value("${application.mail.outbox.stale-after-ms}")
+    private long staleAfterMs;
+
+    public EmailOutboxServiceImpl(EmailOutboxRepository emailOutboxRepository, JavaMailSender javaMailSender,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${application.mail.outbox.workers}") int workers,
+            @Value("${application.mail.outbox.messages-per-second}") double messagesPerSecond) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.javaMailSender = javaMailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.idleWorkers = new Semaphore(workers);
+        this.rateLimiter = new RateLimiter(messagesPerSecond);
+        this.burstSize = Math.max(1, (int) messagesPerSecond);
+
+        // the semaphore bounds the in-flight batches; the queue only covers a worker that
+        // released its permit but has not returned to the pool yet
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(workers);
+        this.executor.setMaxPoolSize(workers);
+        this.executor.setQueueCapacity(workers);
+        this.executor.setThreadNamePrefix("mail-outbox-");
+        this.executor.initialize();
+
+        this.sentMessages = Counter.builder("library.mail.outbox.sent").description("Emails delivered to the SMTP server")
+                .register(meterRegistry);
+        this.retriedMessages = Counter.builder("library.mail.outbox.retried")
+                .description("Emails rescheduled after a failed attempt").register(meterRegistry);
+        this.failedMessages = Counter.builder("library.mail.outbox.failed")
+                .description("Emails given up after the last attempt").register(meterRegistry);
+        // counted once per poll rather than on every scrape
+        Gauge.builder("library.mail.outbox.pending", pendingMessages, AtomicLong::get)
+                .description("Emails waiting in the outbox").register(meterRegistry);
+        Gauge.builder("library.mail.outbox.in-flight", idleWorkers, semaphore -> workers - semaphore.availablePermits())
+                .description("Batches being sent").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.mail.outbox.poll-interval-ms}")
+    @Override
+    public void dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer released = transactionTemplate
+                .execute(status -> emailOutboxRepository.releaseStale(now.minusNanos(staleAfterMs * 1_000_000)));
+        if (released != null && released > 0) {
+            log.warn("released {} emails left in sending state", released);
+        }
+
+        while (idleWorkers.tryAcquire()) {
+            List<EmailOutbox> batch = claim(now);
+            if (batch.isEmpty()) {
+                idleWorkers.release();
+                break;
+            }
+            executor.execute(() -> {
+                try {
+                    send(batch);
+                } finally {
+                    idleWorkers.release();
+                }
+            });
+        }
+        pendingMessages.set(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+    }
+
+    private List<EmailOutbox> claim(LocalDateTime now) {
+        String token = UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = emailOutboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty() || emailOutboxRepository.claim(ids, token, now) == 0) {
+                return Collections.<EmailOutbox>emptyList();
+            }
+            return emailOutboxRepository.findByClaimToken(token);
+        });
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        Map<SimpleMailMessage, EmailOutbox> rowsByMessage = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(emailSender);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getText());
+            rowsByMessage.put(message, email);
+        }
+
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        List<SimpleMailMessage> messages = new ArrayList<>(rowsByMessage.keySet());
+        for (int from = 0; from < messages.size(); from += burstSize) {
+            List<SimpleMailMessage> burst = messages.subList(from, Math.min(from + burstSize, messages.size()));
+            try {
+                rateLimiter.acquire(burst.size());
+                javaMailSender.send(burst.toArray(new SimpleMailMessage[0]));
+            } catch (MailSendException ex) {
+                failures.putAll(ex.getFailedMessages().isEmpty() ? failAll(burst, ex) : ex.getFailedMessages());
+            } catch (MailException ex) {
+                failures.putAll(failAll(burst, ex));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failures.putAll(failAll(messages.subList(from, messages.size()), ex));
+                break;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<SimpleMailMessage, EmailOutbox> entry : rowsByMessage.entrySet()) {
+            EmailOutbox email = entry.getValue();
+            email.setClaimToken(null);
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                email.setStatus(EmailOutboxStatus.SENT);
+                email.setSentAt(now);
+                sentMessages.increment();
+            } else {
+                reschedule(email, failure, now);
+            }
+        }
+        save(batch);
+    }
+
+    /**
+     * Saves the batch as a whole and, when a row was released as stale and claimed
+     * again meanwhile, row by row, so only the rows this worker still owns are saved.
+     */
+    private void save(List<EmailOutbox> batch) {
+        try {
+            transactionTemplate.execute(status -> emailOutboxRepository.saveAll(batch));
+        } catch (OptimisticLockingFailureException ex) {
+            for (EmailOutbox email : batch) {
+                try {
+                    transactionTemplate.execute(status -> emailOutboxRepository.save(email));
+                } catch (OptimisticLockingFailureException stale) {
+                    log.warn("email {} was claimed again while being sent, keeping the new claim", email.getId());
+                }
+            }
+        }
+    }
+
+    private void reschedule(EmailOutbox email, Exception failure, LocalDateTime now) {
+        email.setAttempts(email.getAttempts() + 1);
+        String error = String.valueOf(failure.getMessage());
+        email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailOutboxStatus.FAILED);
+            failedMessages.increment();
+            log.error("giving up email {} after {} attempts", email.getId(), email.getAttempts(), failure);
+            return;
+        }
+
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(email.getAttempts() - 1, 30));
+        log.warn("email {} failed on attempt {}, retrying in {} ms: {}", email.getId(), email.getAttempts(), backoff,
+                error);
+        email.setStatus(EmailOutboxStatus.PENDING);
+        email.setNextAttemptAt(now.plusNanos(backoff * 1_000_000));
+        retriedMessages.increment();
+    }
+
+    private Map<Object, Exception> failAll(Collection<SimpleMailMessage> messages, Exception ex) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.forEach(message -> failures.put(message, ex));
+        return failures;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Spaces sends evenly so the workers together stay under the provider's rate:
+     * a burst of n messages keeps the next one waiting for n intervals.
+     */
+    static class RateLimiter {
+
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        }
+
+        void acquire(int permits) throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(now, nextFreeNanos);
+                nextFreeNanos = start + intervalNanos * permits;
+                waitNanos = start - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package com.project.libraryapi.services.impl;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import com.project.libraryapi.models.entities.EmailOutbox;
+import com.project.libraryapi.models.repositories.EmailOutboxRepository;
 import com.project.libraryapi.services.EmailService;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
@@ -15,19 +16,15 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender javaMailSender;
+    private static final String SUBJECT = "Livro com empréstimo atrasado";
 
-    @Value("${application.mail.email-sender}")
-    private String emailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
 
     @Override
     public void sendMails(List<String> mailList, String message) {
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(emailSender);
-        mailMessage.setSubject("Livro com empréstimo atrasado");
-        mailMessage.setText(message);
-        mailMessage.setTo(mailList.toArray(new String[mailList.size()]));
-
-        javaMailSender.send(mailMessage);
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.saveAll(mailList.stream().distinct().map(recipient -> EmailOutbox.builder()
+                .recipient(recipient).subject(SUBJECT).text(message).nextAttemptAt(now).build())
+                .collect(Collectors.toList()));
     }
 }
@@ -1,20 +1,45 @@
 package com.project.libraryapi.services.impl;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.api.dtos.BookLoanStatsDTO;
+import com.project.libraryapi.api.dtos.LoanBulkCheckoutDTO;
+import com.project.libraryapi.api.dtos.LoanBulkResultDTO;
 import com.project.libraryapi.api.dtos.LoanFilterDTO;
+import com.project.libraryapi.api.dtos.LoanStatsDTO;
 import com.project.libraryapi.api.exceptions.BusinessException;
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.models.projections.LateLoanRow;
+import com.project.libraryapi.models.projections.LoanExportRow;
+import com.project.libraryapi.models.projections.LoanReturnRow;
+import com.project.libraryapi.models.projections.LoanTotalsRow;
+import com.project.libraryapi.models.repositories.BookAvailabilityRepository;
+import com.project.libraryapi.models.repositories.BookRepository;
 import com.project.libraryapi.models.repositories.LoanRepository;
+import com.project.libraryapi.models.repositories.LoanSpecifications;
 import com.project.libraryapi.services.LoanService;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,12 +47,31 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LoanServiceImpl implements LoanService {
 
+    private static final int LOAN_DAYS = 4;
+    private static final String BOOK_ALREADY_LOANED = "Book already loaned";
+
     private final LoanRepository loanRepository;
+    private final BookAvailabilityRepository bookAvailabilityRepository;
+    private final BookRepository bookRepository;
+
+    @Value("${application.loans.export.fetch-size}")
+    private int exportFetchSize;
+
+    @Value("${application.loans.bulk.max-size}")
+    private int bulkMaxSize;
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if (loanRepository.existsByBookAndNotReturned(loan.getBook())) {
-            throw new BusinessException("Book already loaned");
+        Long bookId = loan.getBook().getId();
+        if (bookAvailabilityRepository.checkout(bookId) == 0) {
+            if (bookAvailabilityRepository.existsById(bookId)) {
+                throw new BusinessException(BOOK_ALREADY_LOANED);
+            }
+            bookAvailabilityRepository.recordAll(Collections.singletonList(bookId));
+            if (bookAvailabilityRepository.checkout(bookId) == 0) {
+                throw new BusinessException(BOOK_ALREADY_LOANED);
+            }
         }
 
         return loanRepository.save(loan);
@@ -39,25 +83,178 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
-    public Loan update(Loan loan) {
-        return loanRepository.save(loan);
+    @Transactional
+    public void returnLoan(Loan loan) {
+        if (loanRepository.markReturned(loan.getId()) == 1) {
+            bookAvailabilityRepository.release(loan.getBook().getId());
+        }
+        loan.setReturned(true);
+    }
+
+    @Override
+    @Transactional
+    public List<LoanBulkResultDTO> checkout(LoanBulkCheckoutDTO checkout) {
+        List<String> isbns = checkout.getIsbns();
+        checkBulkSize(isbns);
+        Map<String, Book> booksByIsbn = bookRepository.findByIsbnIn(new HashSet<>(isbns)).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+
+        List<Long> bookIds = isbns.stream().filter(booksByIsbn::containsKey).map(isbn -> booksByIsbn.get(isbn).getId())
+                .collect(Collectors.toList());
+        recordAvailability(bookIds);
+
+        // one checkout per requested position, so the second request of the same book finds it already loaned
+        int[] taken = bookAvailabilityRepository.checkoutAll(bookIds);
+        List<LoanBulkResultDTO> results = new ArrayList<>(isbns.size());
+        List<Loan> loans = new ArrayList<>();
+        List<LoanBulkResultDTO> loanResults = new ArrayList<>();
+        int position = 0;
+        for (String isbn : isbns) {
+            Book book = booksByIsbn.get(isbn);
+            if (book == null) {
+                results.add(LoanBulkResultDTO.builder().isbn(isbn).error("Book not found").build());
+            } else if (taken[position++] == 0) {
+                results.add(LoanBulkResultDTO.builder().isbn(isbn).error(BOOK_ALREADY_LOANED).build());
+            } else {
+                LoanBulkResultDTO result = LoanBulkResultDTO.builder().isbn(isbn).success(true).build();
+                results.add(result);
+                loanResults.add(result);
+                loans.add(Loan.builder().book(book).customer(checkout.getCustomer())
+                        .customerEmail(checkout.getCustomerEmail()).loanDate(LocalDate.now()).build());
+            }
+        }
+
+        loanRepository.insertAll(loans);
+        for (int i = 0; i < loans.size(); i++) {
+            loanResults.get(i).setLoanId(loans.get(i).getId());
+        }
+        return results;
     }
 
     @Override
+    @Transactional
+    public List<LoanBulkResultDTO> returnLoans(List<Long> ids) {
+        checkBulkSize(ids);
+        Map<Long, LoanReturnRow> rowsById = loanRepository.findReturnRows(new HashSet<>(ids)).stream()
+                .collect(Collectors.toMap(LoanReturnRow::getId, Function.identity()));
+
+        List<Long> foundIds = ids.stream().filter(rowsById::containsKey).collect(Collectors.toList());
+        int[] returned = loanRepository.markAllReturned(foundIds);
+
+        List<LoanBulkResultDTO> results = new ArrayList<>(ids.size());
+        List<Long> releasedBookIds = new ArrayList<>();
+        int position = 0;
+        for (Long id : ids) {
+            LoanReturnRow row = rowsById.get(id);
+            if (row == null) {
+                results.add(LoanBulkResultDTO.builder().loanId(id).error("Loan not found").build());
+            } else if (returned[position++] == 0) {
+                results.add(LoanBulkResultDTO.builder().loanId(id).error("Loan already returned").build());
+            } else {
+                results.add(LoanBulkResultDTO.builder().loanId(id).success(true).build());
+                releasedBookIds.add(row.getBookId());
+            }
+        }
+
+        bookAvailabilityRepository.releaseAll(releasedBookIds);
+        return results;
+    }
+
+    private void checkBulkSize(Collection<?> items) {
+        if (items.size() > bulkMaxSize) {
+            throw new BusinessException("A bulk request can have at most " + bulkMaxSize + " items");
+        }
+    }
+
+    private void recordAvailability(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        Collection<Long> recorded = bookAvailabilityRepository.findRecordedBookIds(bookIds);
+        List<Long> unrecorded = bookIds.stream().filter(bookId -> !recorded.contains(bookId)).distinct()
+                .collect(Collectors.toList());
+        if (unrecorded.isEmpty()) {
+            return;
+        }
+        // books a concurrent checkout recorded first are skipped, and checkoutAll reports the ones it took as loaned
+        bookAvailabilityRepository.recordAll(unrecorded);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO loanFilterDTO, Pageable pageable) {
         return loanRepository.findByBookIsbnOrCustomer(loanFilterDTO.getIsbn(), loanFilterDTO.getCustomer(), pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<Loan> findSlice(LoanFilterDTO loanFilterDTO, Pageable pageable) {
+        return loanRepository.findSliceByBookIsbnOrCustomer(loanFilterDTO.getIsbn(), loanFilterDTO.getCustomer(),
+                pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetSlice<Loan> find(LoanFilterDTO loanFilterDTO, KeysetPageRequest keysetRequest) {
+        return loanRepository.findAll(
+                LoanSpecifications.byBookIsbnOrCustomer(loanFilterDTO.getIsbn(), loanFilterDTO.getCustomer()),
+                keysetRequest);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void export(LoanFilterDTO loanFilterDTO, Consumer<LoanExportRow> consumer) {
+        try (Stream<LoanExportRow> rows = loanRepository.streamForExport(loanFilterDTO.getIsbn(),
+                loanFilterDTO.getCustomer(), exportFetchSize)) {
+            rows.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
         return loanRepository.findByBook(book, pageable);
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return loanRepository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+    @Transactional(readOnly = true)
+    public Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable) {
+        return loanRepository.findSliceByBook(book, pageable);
+    }
+
+    @Override
+    public List<LateLoanRow> getLateLoans(String afterEmail, Long afterId, int chunkSize) {
+        LocalDate loanDate = LocalDate.now().minusDays(LOAN_DAYS);
+        return loanRepository.findLateLoans(loanDate, afterEmail, afterId, PageRequest.of(0, chunkSize));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BookLoanStatsDTO getBookStats(Book book) {
+        return bookAvailabilityRepository.findById(book.getId())
+                .map(availability -> BookLoanStatsDTO.builder().bookId(book.getId())
+                        .available(availability.getAvailable()).activeLoans(availability.getAvailable() ? 0 : 1)
+                        .totalLoans(availability.getTotalLoans()).build())
+                .orElseGet(() -> {
+                    // not checked out since availability is recorded, so only its older loans are counted
+                    boolean loaned = loanRepository.existsByBookAndReturnedFalse(book);
+                    return BookLoanStatsDTO.builder().bookId(book.getId()).available(!loaned)
+                            .activeLoans(loaned ? 1 : 0).totalLoans(loanRepository.countByBook(book)).build();
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LoanStatsDTO getStats() {
+        LoanTotalsRow recorded = bookAvailabilityRepository.sumLoanTotals();
+        // like getBookStats, a book not checked out since availability is recorded counts its older loans
+        LoanTotalsRow unrecorded = loanRepository.sumUnrecordedLoanTotals();
+        return LoanStatsDTO.builder()
+                .activeLoans(orZero(recorded.getActiveLoans()) + orZero(unrecorded.getActiveLoans()))
+                .totalLoans(orZero(recorded.getTotalLoans()) + orZero(unrecorded.getTotalLoans())).build();
+    }
+
+    private static long orZero(Long count) {
+        return count != null ? count : 0;
+    }
 }
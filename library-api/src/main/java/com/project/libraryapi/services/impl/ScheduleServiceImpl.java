@@ -1,10 +1,9 @@
 package com.project.libraryapi.services.impl;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
 
-import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.projections.LateLoanRow;
 import com.project.libraryapi.services.EmailService;
 import com.project.libraryapi.services.LoanService;
 import com.project.libraryapi.services.ScheduleService;
@@ -13,10 +12,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class ScheduleServiceImpl implements ScheduleService {
 
     private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
@@ -24,15 +26,60 @@ public class ScheduleServiceImpl implements ScheduleService {
     @Value("${application.mail.late-loan.message}")
     private String message;
 
+    @Value("${application.mail.late-loan.chunk-size}")
+    private int chunkSize;
+
     private final LoanService loanService;
     private final EmailService emailService;
+    private final Counter processedLoans;
+    private final Counter processedChunks;
+    private final Timer jobTimer;
+
+    public ScheduleServiceImpl(LoanService loanService, EmailService emailService, MeterRegistry meterRegistry) {
+        this.loanService = loanService;
+        this.emailService = emailService;
+        this.processedLoans = Counter.builder("library.late-loans.processed")
+                .description("Late loans notified by the late loan job").register(meterRegistry);
+        this.processedChunks = Counter.builder("library.late-loans.chunks")
+                .description("Chunks processed by the late loan job").register(meterRegistry);
+        this.jobTimer = Timer.builder("library.late-loans.job").description("Late loan job duration")
+                .register(meterRegistry);
+    }
 
     @Scheduled(cron = CRON_LATE_LOANS)
     @Override
     public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailList = allLateLoans.stream().map(loan -> loan.getCustomerEmail()).collect(Collectors.toList());
+        jobTimer.record(() -> {
+            String lastEmail = "";
+            long lastId = 0;
+            long total = 0;
+            List<LateLoanRow> chunk;
+            do {
+                chunk = loanService.getLateLoans(lastEmail, lastId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                // rows come ordered by email, so the loans of a customer are adjacent, even across chunks, and only
+                // the first one is mailed
+                List<String> mailList = new ArrayList<>();
+                for (LateLoanRow row : chunk) {
+                    if (!row.getCustomerEmail().equals(lastEmail)) {
+                        mailList.add(row.getCustomerEmail());
+                        lastEmail = row.getCustomerEmail();
+                    }
+                    lastId = row.getId();
+                }
+                if (!mailList.isEmpty()) {
+                    emailService.sendMails(mailList, message);
+                }
 
-        emailService.sendMails(mailList, message);
+                total += chunk.size();
+                processedLoans.increment(chunk.size());
+                processedChunks.increment();
+                log.debug("late loan job notified {} loans up to id {}", total, lastId);
+            } while (chunk.size() == chunkSize);
+            log.info("late loan job notified {} loans", total);
+        });
     }
 }
@@ -0,0 +1,33 @@
+package com.project.libraryapi.api.mappers;
+
+import java.time.LocalDate;
+
+import com.project.libraryapi.api.dtos.LoanDTO;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LoanMapperTest {
+
+    LoanMapper loanMapper = new LoanMapperImpl(new BookMapperImpl());
+
+    @Test
+    @DisplayName("Deve mapear o emprestimo com o livro e o isbn do livro")
+    void toDTOTest() {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+        Loan loan = Loan.builder().id(2l).book(book).customer("user").customerEmail("user@email.com")
+                .loanDate(LocalDate.now()).build();
+
+        LoanDTO loanDTO = loanMapper.toDTO(loan);
+
+        Assertions.assertThat(loanDTO.getId()).isEqualTo(2l);
+        Assertions.assertThat(loanDTO.getIsbn()).isEqualTo("123456");
+        Assertions.assertThat(loanDTO.getCustomer()).isEqualTo("user");
+        Assertions.assertThat(loanDTO.getCustomerEmail()).isEqualTo("user@email.com");
+        Assertions.assertThat(loanDTO.getBook().getId()).isEqualTo(1l);
+        Assertions.assertThat(loanDTO.getBook().getTitle()).isEqualTo("The legend");
+    }
+}
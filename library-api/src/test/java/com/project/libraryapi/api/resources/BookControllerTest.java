@@ -1,29 +1,47 @@
 package com.project.libraryapi.api.resources;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Optional;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.project.libraryapi.api.dtos.BookDTO;
+import com.project.libraryapi.api.dtos.BookImportReportDTO;
+import com.project.libraryapi.api.dtos.BookLoanStatsDTO;
 import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.api.mappers.BookMapperImpl;
+import com.project.libraryapi.api.mappers.LoanMapperImpl;
 import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.services.BookImportService;
 import com.project.libraryapi.services.BookService;
 import com.project.libraryapi.services.LoanService;
 
+import org.assertj.core.api.Assertions;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -34,6 +52,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
+@Import({ BookMapperImpl.class, LoanMapperImpl.class })
 @AutoConfigureMockMvc
 class BookControllerTest {
 
@@ -48,6 +67,9 @@ class BookControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    BookImportService bookImportService;
+
     @Test
     @DisplayName("Deve filtrar livros")
     void findBooksTest() throws Exception {
@@ -64,8 +86,109 @@ class BookControllerTest {
         mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
+                .andExpect(MockMvcResultMatchers.jsonPath("size").value(100))
+                .andExpect(MockMvcResultMatchers.jsonPath("number").value(0));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem contar o total quando count for falso")
+    void findBooksSliceTest() throws Exception {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+
+        BDDMockito.given(bookService.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?title=legend&count=false&size=1"))
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist());
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar a ordenacao por propriedade que nao pode ser ordenada")
+    void findBooksWithInvalidSortTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?title=legend&sort=version"))
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?count=false&sort=title&sort=loans"))
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        Mockito.verifyNoInteractions(bookService);
+    }
+
+    @Test
+    @DisplayName("Deve retornar a pagina de livros em CBOR ou Smile conforme o Accept")
+    void findBooksBinaryTest() throws Exception {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").version(0l).build();
+
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        byte[] cbor = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL).accept("application/cbor"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/cbor"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.VARY,
+                        Matchers.containsString(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL).accept("application/x-jackson-smile"))
+                .andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsByteArray();
+
+        for (JsonNode page : Arrays.asList(new ObjectMapper(new CBORFactory()).readTree(cbor),
+                new ObjectMapper(new SmileFactory()).readTree(smile))) {
+            Assertions.assertThat(page.path("content").get(0).path("isbn").asText()).isEqualTo("123456");
+            Assertions.assertThat(page.path("totalElements").asLong()).isEqualTo(1);
+            Assertions.assertThat(page.has("pageable")).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve listar livros por cursor retornando o proximo cursor")
+    void findBooksAfterCursorTest() throws Exception {
+        Book book = Book.builder().id(7l).title("The legend").author("Test").isbn("123456").build();
+
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(KeysetPageRequest.class)))
+                .willReturn(new KeysetSlice<>(Arrays.asList(book), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API_URL.concat("?after=&size=1&sort=title")).accept(MediaType.APPLICATION_JSON);
+
+        String nextCursor = mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("size").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").doesNotExist())
+                .andReturn().getResponse().getContentAsString().replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?after=" + nextCursor + "&size=1&sort=title")))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        ArgumentCaptor<KeysetPageRequest> captor = ArgumentCaptor.forClass(KeysetPageRequest.class);
+        Mockito.verify(bookService, Mockito.times(2)).find(Mockito.any(Book.class), captor.capture());
+        Assertions.assertThat(captor.getValue().getLastId()).isEqualTo(7l);
+        Assertions.assertThat(captor.getValue().getLastValue()).isEqualTo("The legend");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cursor que nao corresponde a ordenacao solicitada")
+    void findBooksWithMismatchedCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API_URL.concat("?after=aXNibixBU0MsMSwx&sort=title")).accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro ao filtrar livros com um cursor adulterado")
+    void findBooksWithMalformedCursorTest() throws Exception {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("id,ASC,1,abc".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API_URL.concat("?after=" + cursor)).accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Invalid cursor"));
+        Mockito.verify(bookService, Mockito.never()).find(Mockito.any(Book.class),
+                Mockito.any(KeysetPageRequest.class));
     }
 
     @Test
@@ -86,6 +209,87 @@ class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Deve obter os contadores de emprestimos de um livro")
+    void getBookStatsTest() throws Exception {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+
+        BDDMockito.given(bookService.getById(1l)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getBookStats(book)).willReturn(
+                BookLoanStatsDTO.builder().bookId(1l).available(false).activeLoans(1).totalLoans(7).build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/1/stats")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("available").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("activeLoans").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalLoans").value(7));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 sem corpo quando a versao do livro nao mudou")
+    void getNotModifiedBookTest() throws Exception {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").version(3l).build();
+
+        BDDMockito.given(bookService.getById(1l)).willReturn(Optional.of(book));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/1")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"3\""));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"3\"")).andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        book.setVersion(4l);
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"4\""));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 para a pagina de livros enquanto nenhum livro da pagina mudar")
+    void findNotModifiedBooksTest() throws Exception {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").version(0l).build();
+
+        BDDMockito.given(bookService.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?page=0&size=10")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, Matchers.startsWith("W/\"")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?page=0&size=10"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        book.setVersion(1l);
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("?page=0&size=10"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Deve obter livros em lote na ordem pedida indicando os nao encontrados")
+    void batchBooksTest() throws Exception {
+        Book book = Book.builder().id(7l).title("The legend").author("Test").isbn("123456").build();
+
+        BDDMockito.given(bookService.getByIds(Arrays.asList(9l, 7l))).willReturn(Arrays.asList(null, book));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/batch?ids=9,7")))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", Matchers.hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].id").value(9))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].found").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].found").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].book.isbn").value("123456"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/batch")))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL.concat("/batch?ids=1&isbns=123456")))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Deve retornar resource not found quando o livro procurado não existir")
     void bookNotFoundTest() throws Exception {
@@ -147,6 +351,20 @@ class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Isbn já cadastrado"));
     }
 
+    @Test
+    @DisplayName("Deve importar livros a partir de um CSV")
+    void importBooksTest() throws Exception {
+        BookImportReportDTO report = BookImportReportDTO.builder().processed(1).imported(1).build();
+        BDDMockito.given(bookImportService.importBooks(Mockito.any(), Mockito.eq("text/csv"))).willReturn(report);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(BOOK_API_URL.concat("/import"))
+                .contentType("text/csv").accept(MediaType.APPLICATION_JSON).content("title,author,isbn\nA,B,1\n");
+
+        mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("imported").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("errors", Matchers.hasSize(0)));
+    }
+
     @Test
     @DisplayName("Deve atualizar um livro")
     void updateBookTest() throws Exception {
@@ -171,6 +389,44 @@ class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Deve atualizar um livro apenas se o If-Match corresponder a versao atual")
+    void updateBookIfMatchTest() throws Exception {
+        BookDTO bookDTO = BookDTO.builder().title("The legend2").author("Test2").isbn("123456").build();
+        String json = new ObjectMapper().writeValueAsString(bookDTO);
+
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").version(2l).build();
+        BDDMockito.given(bookService.getById(1l)).willReturn(Optional.of(book));
+        BDDMockito.given(bookService.update(book)).willReturn(
+                Book.builder().id(1l).title("The legend2").author("Test2").isbn("123456").version(3l).build());
+
+        mockMvc.perform(MockMvcRequestBuilders.put(BOOK_API_URL.concat("/1")).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1\"").content(json))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        Mockito.verify(bookService, Mockito.never()).update(Mockito.any(Book.class));
+
+        mockMvc.perform(MockMvcRequestBuilders.put(BOOK_API_URL.concat("/1")).contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "W/\"2\"").content(json))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"3\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("title").value("The legend2"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar conflito quando o livro for alterado durante a atualizacao")
+    void updateBookConcurrentlyModifiedTest() throws Exception {
+        BookDTO bookDTO = BookDTO.builder().title("The legend2").author("Test2").isbn("123456").build();
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").version(2l).build();
+
+        BDDMockito.given(bookService.getById(1l)).willReturn(Optional.of(book));
+        BDDMockito.given(bookService.update(book))
+                .willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1l));
+
+        mockMvc.perform(MockMvcRequestBuilders.put(BOOK_API_URL.concat("/1")).contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(bookDTO)))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
     @Test
     @DisplayName("Deve retornar 404 ao tentar atualizar um livro inexistente")
     void updateInexistentBookTest() throws Exception {
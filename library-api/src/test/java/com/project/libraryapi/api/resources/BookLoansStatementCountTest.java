@@ -0,0 +1,75 @@
+package com.project.libraryapi.api.resources;
+
+import java.time.LocalDate;
+
+import javax.persistence.EntityManagerFactory;
+
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.models.repositories.LoanRepository;
+
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.boot.admin.client.enabled=false" })
+@AutoConfigureMockMvc
+class BookLoansStatementCountTest {
+
+    static final String BOOK_API_URL = "/api/books";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve obter uma pagina de emprestimos de um livro com o livro, os emprestimos e a contagem")
+    void loansByBookStatementCountTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        for (int i = 0; i < 3; i++) {
+            loanRepository.save(Loan.builder().book(book).customer("user-" + i).loanDate(LocalDate.now()).build());
+        }
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL + "/" + book.getId() + "/loans?page=0&size=2")
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content[1].book.title").value("The legend"))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(3));
+
+        // the book, the page of loans with their book fetched along, and the count
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
@@ -1,15 +1,25 @@
 package com.project.libraryapi.api.resources;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.dtos.LoanBulkCheckoutDTO;
+import com.project.libraryapi.api.dtos.LoanBulkResultDTO;
 import com.project.libraryapi.api.dtos.LoanFilterDTO;
+import com.project.libraryapi.api.dtos.LoanStatsDTO;
 import com.project.libraryapi.api.dtos.ReturnedLoanDTO;
 import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.api.mappers.BookMapperImpl;
+import com.project.libraryapi.api.mappers.LoanMapperImpl;
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.projections.LoanExportRow;
 import com.project.libraryapi.services.BookService;
 import com.project.libraryapi.services.LoanService;
 
@@ -23,13 +33,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -37,6 +50,7 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
+@Import({ BookMapperImpl.class, LoanMapperImpl.class })
 @AutoConfigureMockMvc
 class LoanControllerTest {
 
@@ -70,8 +84,37 @@ class LoanControllerTest {
         mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
                 .andExpect(MockMvcResultMatchers.jsonPath("totalElements").value(1))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageSize").value(100))
-                .andExpect(MockMvcResultMatchers.jsonPath("pageable.pageNumber").value(0));
+                .andExpect(MockMvcResultMatchers.jsonPath("size").value(100))
+                .andExpect(MockMvcResultMatchers.jsonPath("number").value(0));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar emprestimos sem contar o total quando count for falso")
+    void findLoansSliceTest() throws Exception {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+        Loan loan = Loan.builder().id(1l).book(book).customer("user").loanDate(LocalDate.now()).build();
+
+        BDDMockito.given(loanService.findSlice(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(LOAN_API_URL.concat("?customer=user&count=false"))
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("hasNext").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalPages").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro ao filtrar emprestimos com uma data adulterada no cursor")
+    void findLoansWithMalformedCursorTest() throws Exception {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("loanDate,ASC,1,notadate".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(MockMvcRequestBuilders.get(LOAN_API_URL.concat("?sort=loanDate&after=" + cursor))
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Invalid cursor"));
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class),
+                Mockito.any(KeysetPageRequest.class));
     }
 
     @Test
@@ -130,6 +173,49 @@ class LoanControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("errors[0]").value("Book already loaned"));
     }
 
+    @Test
+    @DisplayName("Deve realizar emprestimos em lote informando o resultado de cada isbn")
+    void bulkCheckoutTest() throws Exception {
+        LoanBulkCheckoutDTO checkoutDTO = LoanBulkCheckoutDTO.builder().customer("user")
+                .isbns(Arrays.asList("123456", "654321")).build();
+        String json = new ObjectMapper().writeValueAsString(checkoutDTO);
+
+        BDDMockito.given(loanService.checkout(checkoutDTO)).willReturn(Arrays.asList(
+                LoanBulkResultDTO.builder().loanId(1l).isbn("123456").success(true).build(),
+                LoanBulkResultDTO.builder().isbn("654321").error("Book already loaned").build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API_URL.concat("/checkouts"))
+                .accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON).content(json);
+
+        mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].loanId").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("[0].success").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].success").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("[1].error").value("Book already loaned"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao devolver emprestimos em lote sem ids")
+    void emptyBulkReturnTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API_URL.concat("/returns"))
+                .accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[]}");
+
+        mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isBadRequest());
+        Mockito.verify(loanService, Mockito.never()).returnLoans(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve obter os contadores de emprestimos de todos os livros")
+    void statsTest() throws Exception {
+        BDDMockito.given(loanService.getStats())
+                .willReturn(LoanStatsDTO.builder().activeLoans(2).totalLoans(9).build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(LOAN_API_URL.concat("/stats")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("activeLoans").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("totalLoans").value(9));
+    }
+
     @Test
     @DisplayName("Deve retorna um livro")
     void returnBookTest() throws Exception {
@@ -143,7 +229,7 @@ class LoanControllerTest {
                 .accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON).content(json);
 
         mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk());
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+        Mockito.verify(loanService, Mockito.times(1)).returnLoan(loan);
     }
 
     @Test
@@ -159,4 +245,31 @@ class LoanControllerTest {
 
         mockMvc.perform(request).andExpect(MockMvcResultMatchers.status().isNotFound());
     }
+
+    @Test
+    @DisplayName("Deve exportar emprestimos em csv")
+    void exportLoansCsvTest() throws Exception {
+        LoanExportRow row = new LoanExportRow(1l, "123456", "Doe, John", "john@mail.com", LocalDate.of(2020, 1, 2),
+                null);
+        Mockito.doAnswer(invocation -> {
+            invocation.<Consumer<LoanExportRow>>getArgument(1).accept(row);
+            return null;
+        }).when(loanService).export(Mockito.any(LoanFilterDTO.class), Mockito.any());
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(LOAN_API_URL.concat("/export?customer=user")))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("text/csv"))
+                .andExpect(MockMvcResultMatchers.content().string(
+                        "id,isbn,customer,customerEmail,loanDate,returned\n1,123456,\"Doe, John\",john@mail.com,2020-01-02,\n"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao exportar em formato nao suportado")
+    void exportLoansInvalidFormatTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get(LOAN_API_URL.concat("/export?format=xml")))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
 }
@@ -0,0 +1,74 @@
+package com.project.libraryapi.config;
+
+import java.util.Optional;
+
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.services.BookService;
+import com.project.libraryapi.services.impl.BookServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class LayerMetricsAspectTest {
+
+    MeterRegistry meterRegistry;
+
+    BookService bookService;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        LayerMetricsAspect aspect = new LayerMetricsAspect(meterRegistry);
+
+        AspectJProxyFactory repositoryFactory = new AspectJProxyFactory(bookRepository);
+        repositoryFactory.addAspect(aspect);
+        BookRepository timedRepository = repositoryFactory.getProxy();
+
+        AspectJProxyFactory serviceFactory = new AspectJProxyFactory(new BookServiceImpl(timedRepository));
+        serviceFactory.addAspect(aspect);
+        bookService = serviceFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Deve medir o servico e o repositorio com a classe, o metodo e o resultado")
+    void timeServiceAndRepositoryTest() {
+        Mockito.when(bookRepository.findById(1l)).thenReturn(Optional.of(Book.builder().id(1l).build()));
+
+        bookService.getById(1l);
+
+        Assertions.assertThat(meterRegistry.get(LayerMetricsAspect.SERVICE_TIMER).tag("class", "BookServiceImpl")
+                .tag("method", "getById").tag("outcome", "success").timer().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get(LayerMetricsAspect.REPOSITORY_TIMER).tag("method", "findById")
+                .tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve marcar a chamada como erro com a excecao lancada")
+    void timeErrorOutcomeTest() {
+        Mockito.when(bookRepository.saveAndFlush(Mockito.any(Book.class))).thenThrow(new BusinessException("x"));
+
+        Assertions.assertThatThrownBy(() -> bookService.save(Book.builder().isbn("1").build()))
+                .isInstanceOf(BusinessException.class);
+
+        Assertions.assertThat(meterRegistry.get(LayerMetricsAspect.SERVICE_TIMER).tag("method", "save")
+                .tag("outcome", "error").tag("exception", "BusinessException").timer().count()).isEqualTo(1);
+    }
+}
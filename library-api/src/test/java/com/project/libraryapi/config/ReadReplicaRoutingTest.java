@@ -0,0 +1,125 @@
+package com.project.libraryapi.config;
+
+import java.util.List;
+
+import javax.servlet.http.Cookie;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.dtos.BookDTO;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@ExtendWith({ SpringExtension.class, OutputCaptureExtension.class })
+@ActiveProfiles("test")
+@SpringBootTest(properties = { "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "application.datasource.replicas[0].url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "spring.boot.admin.client.enabled=false" })
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    static final String BOOK_API_URL = "/api/books";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL));
+
+    @BeforeEach
+    void setUp() {
+        Integer tables = replica.queryForObject(
+                "select count(*) from information_schema.tables where table_name = 'BOOK'", Integer.class);
+        if (tables == 0) {
+            // the local replica is a second, empty H2 instance: give it the primary's schema
+            List<String> script = primary.queryForList("script nodata", String.class);
+            script.stream().filter(statement -> !statement.startsWith("CREATE USER")).forEach(replica::execute);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (JdbcTemplate database : new JdbcTemplate[] { primary, replica }) {
+            database.update("delete from loan");
+            database.update("delete from book_availability");
+            database.update("delete from book");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ler livros da replica nas requisicoes de leitura")
+    void readFromReplicaTest() throws Exception {
+        insertBook(replica, 1001l, "Replica");
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL + "/1001").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("title").value("Replica"));
+    }
+
+    @Test
+    @DisplayName("Deve gravar no primario mesmo depois de ler o livro na replica")
+    void writeToPrimaryAfterReplicaReadTest(CapturedOutput output) throws Exception {
+        insertBook(primary, 1002l, "Old");
+        insertBook(replica, 1002l, "Old");
+        String json = new ObjectMapper()
+                .writeValueAsString(BookDTO.builder().title("New").author("Test").isbn("isbn-1002").build());
+
+        mockMvc.perform(MockMvcRequestBuilders.put(BOOK_API_URL + "/1002").contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON).content(json)).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.cookie().exists(ReadYourWritesFilter.LAST_WRITE_COOKIE));
+
+        Assertions.assertThat(title(primary, 1002l)).isEqualTo("New");
+        Assertions.assertThat(title(replica, 1002l)).isEqualTo("Old");
+        Assertions.assertThat(output).doesNotContain("JDBC Connection to reset not identical");
+    }
+
+    @Test
+    @DisplayName("Deve desligar o open session in view com replicas configuradas")
+    void openInViewDisabledTest(@Autowired Environment environment) {
+        Assertions.assertThat(environment.getProperty("spring.jpa.open-in-view")).isEqualTo("false");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primario logo depois de uma escrita do cliente")
+    void readYourWritesTest() throws Exception {
+        insertBook(primary, 1003l, "Just written");
+
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL + "/1003").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        Cookie lastWrite = new Cookie(ReadYourWritesFilter.LAST_WRITE_COOKIE,
+                String.valueOf(System.currentTimeMillis()));
+        mockMvc.perform(MockMvcRequestBuilders.get(BOOK_API_URL + "/1003").cookie(lastWrite)
+                .accept(MediaType.APPLICATION_JSON)).andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("title").value("Just written"));
+    }
+
+    private void insertBook(JdbcTemplate database, Long id, String title) {
+        database.update("insert into book (id, title, author, isbn, version) values (?, ?, 'Test', ?, 0)", id, title,
+                "isbn-" + id);
+    }
+
+    private String title(JdbcTemplate database, Long id) {
+        return database.queryForObject("select title from book where id = ?", String.class, id);
+    }
+}
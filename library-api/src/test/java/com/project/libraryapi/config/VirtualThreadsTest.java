@@ -0,0 +1,45 @@
+package com.project.libraryapi.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Deve executar tarefas em virtual threads nomeadas")
+    void runOnVirtualThreadsTest() throws Exception {
+        Assumptions.assumeTrue(VirtualThreads.isSupported(), "requires Java 21 or later");
+
+        ExecutorService executor = VirtualThreads.executor("test-virtual-");
+        try {
+            Future<Thread> thread = executor.submit(Thread::currentThread);
+
+            Assertions.assertThat(thread.get(5, TimeUnit.SECONDS).getName()).isEqualTo("test-virtual-0");
+            Assertions.assertThat(Thread.class.getMethod("isVirtual").invoke(thread.get())).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve falhar com mensagem clara quando a JVM nao tem virtual threads")
+    void unsupportedJavaVersionTest() {
+        Assumptions.assumeFalse(VirtualThreads.isSupported(), "virtual threads are available");
+
+        Throwable exception = Assertions.catchThrowable(() -> VirtualThreads.factory("test-virtual-"));
+
+        Assertions.assertThat(exception).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+    }
+}
@@ -1,16 +1,28 @@
 package com.project.libraryapi.models.repositories;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -58,6 +70,32 @@ class BookRepositoryTest {
         Assertions.assertThat(foundBook.isPresent()).isTrue();
     }
 
+    @Test
+    @DisplayName("Deve obter livros por lista de ids na ordem pedida com nulo para os inexistentes")
+    void findAllInOrderTest() {
+        Book first = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("1").build());
+        Book second = entityManager.persist(Book.builder().title("Other").author("Test").isbn("2").build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Book> books = bookRepository
+                .findAllInOrder(Arrays.asList(second.getId(), -1l, first.getId(), second.getId()), 2);
+
+        Assertions.assertThat(books).extracting(book -> book == null ? null : book.getIsbn()).containsExactly("2",
+                null, "1", "2");
+    }
+
+    @Test
+    @DisplayName("Deve obter livros por lista de isbns")
+    void findByIsbnInTest() {
+        entityManager.persist(Book.builder().title("The legend").author("Test").isbn("1").build());
+        entityManager.persist(Book.builder().title("Other").author("Test").isbn("2").build());
+
+        List<Book> books = bookRepository.findByIsbnIn(Arrays.asList("2", "3"));
+
+        Assertions.assertThat(books).extracting("isbn").containsExactly("2");
+    }
+
     @Test
     @DisplayName("Deve salvar um livro")
     void saveBookTest() {
@@ -68,6 +106,29 @@ class BookRepositoryTest {
         Assertions.assertThat(savedBook.getId()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Deve rejeitar um segundo livro com o mesmo isbn")
+    void saveDuplicatedIsbnTest() {
+        entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+
+        Book duplicated = Book.builder().title("Another legend").author("Test2").isbn("123456").build();
+
+        Assertions.assertThatThrownBy(() -> bookRepository.saveAndFlush(duplicated))
+                .isInstanceOf(DataIntegrityViolationException.class).matches(ex -> ConstraintViolations
+                        .isViolationOf((DataIntegrityViolationException) ex, Book.ISBN_CONSTRAINT));
+    }
+
+    @Test
+    @DisplayName("Deve distinguir outras violacoes de restricao do isbn duplicado")
+    void saveTooLongTitleTest() {
+        Book book = Book.builder().title(String.join("", Collections.nCopies(300, "a"))).author("Test").isbn("1")
+                .build();
+
+        Assertions.assertThatThrownBy(() -> bookRepository.saveAndFlush(book))
+                .isInstanceOf(DataIntegrityViolationException.class).matches(ex -> !ConstraintViolations
+                        .isViolationOf((DataIntegrityViolationException) ex, Book.ISBN_CONSTRAINT));
+    }
+
     @Test
     @DisplayName("Deve deletar um livro")
     void deleteBookTest() {
@@ -80,4 +141,151 @@ class BookRepositoryTest {
 
         Assertions.assertThat(deletedBook).isNull();
     }
+
+    @Test
+    @DisplayName("Deve paginar livros por cursor a partir do ultimo titulo retornado")
+    void findAllByKeysetTest() {
+        Book first = entityManager.persist(Book.builder().title("A legend").author("Test").isbn("1").build());
+        Book second = entityManager.persist(Book.builder().title("B legend").author("Test").isbn("2").build());
+        Book third = entityManager.persist(Book.builder().title("B legend").author("Test").isbn("3").build());
+        Book fourth = entityManager.persist(Book.builder().title("C other").author("Test").isbn("4").build());
+
+        KeysetPageRequest firstPage = KeysetPageRequest.builder().property("title").direction(Sort.Direction.ASC)
+                .size(2).build();
+        KeysetSlice<Book> firstResult = bookRepository.findAll(null, firstPage);
+
+        KeysetPageRequest nextPage = KeysetPageRequest.builder().property("title").direction(Sort.Direction.ASC)
+                .lastValue(second.getTitle()).lastId(second.getId()).size(2).build();
+        KeysetSlice<Book> nextResult = bookRepository.findAll(null, nextPage);
+
+        Assertions.assertThat(firstResult.getContent()).containsExactly(first, second);
+        Assertions.assertThat(firstResult.isHasNext()).isTrue();
+        Assertions.assertThat(nextResult.getContent()).containsExactly(third, fourth);
+        Assertions.assertThat(nextResult.isHasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo indice textual por prefixo de palavra, ignorando caixa e acentos")
+    void searchTest() {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager.getEntityManager());
+        fullTextEntityManager.purgeAll(Book.class);
+
+        Book legend = entityManager.persist(Book.builder().title("A Lenda do Cavaleiro").author("José").isbn("123").build());
+        entityManager.persist(Book.builder().title("Outro livro").author("Maria").isbn("456").build());
+        entityManager.flush();
+        fullTextEntityManager.flushToIndexes();
+
+        Page<Book> result = bookRepository.search(Book.builder().title("lend cav").author("jose").build(),
+                PageRequest.of(0, 10));
+
+        Assertions.assertThat(result.getContent()).containsExactly(legend);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo indice textual com termos maiores que o prefixo indexado")
+    void searchLongTermsTest() {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager.getEntityManager());
+        fullTextEntityManager.purgeAll(Book.class);
+
+        Book book = entityManager.persist(Book.builder().title("Pneumonoultramicroscopicsilicovolcanoconiosis")
+                .author("Test").isbn("9780000000000000000000001").build());
+        entityManager.persist(Book.builder().title("Outro livro").author("Test").isbn("456").build());
+        entityManager.flush();
+        fullTextEntityManager.flushToIndexes();
+
+        Page<Book> byTitle = bookRepository.search(
+                Book.builder().title("pneumonoultramicroscopicsilicovolcanoconiosis").build(), PageRequest.of(0, 10));
+        Page<Book> byIsbn = bookRepository.search(Book.builder().isbn("9780000000000000000000001").build(),
+                PageRequest.of(0, 10));
+
+        Assertions.assertThat(byTitle.getContent()).containsExactly(book);
+        Assertions.assertThat(byIsbn.getContent()).containsExactly(book);
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor a busca no indice textual a partir do ultimo id retornado")
+    void searchAfterTest() {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager.getEntityManager());
+        fullTextEntityManager.purgeAll(Book.class);
+
+        Book first = entityManager.persist(Book.builder().title("A Lenda").author("Test").isbn("1").build());
+        entityManager.persist(Book.builder().title("Outro livro").author("Test").isbn("2").build());
+        Book second = entityManager.persist(Book.builder().title("Lendas").author("Test").isbn("3").build());
+        Book third = entityManager.persist(Book.builder().title("C Lenda").author("Test").isbn("4").build());
+        entityManager.flush();
+        fullTextEntityManager.flushToIndexes();
+        Book filter = Book.builder().title("lenda").build();
+
+        KeysetSlice<Book> firstResult = bookRepository.searchAfter(filter,
+                KeysetPageRequest.builder().property("id").direction(Sort.Direction.ASC).size(2).build());
+        KeysetSlice<Book> nextResult = bookRepository.searchAfter(filter, KeysetPageRequest.builder().property("id")
+                .direction(Sort.Direction.ASC).lastId(second.getId()).size(2).build());
+        KeysetSlice<Book> descendingResult = bookRepository.searchAfter(filter, KeysetPageRequest.builder()
+                .property("id").direction(Sort.Direction.DESC).lastId(third.getId()).size(2).build());
+
+        Assertions.assertThat(firstResult.getContent()).containsExactly(first, second);
+        Assertions.assertThat(firstResult.isHasNext()).isTrue();
+        Assertions.assertThat(nextResult.getContent()).containsExactly(third);
+        Assertions.assertThat(nextResult.isHasNext()).isFalse();
+        Assertions.assertThat(descendingResult.getContent()).containsExactly(second, first);
+        Assertions.assertThat(descendingResult.isHasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve retornar uma pagina vazia quando nenhum termo do filtro sobra apos a analise")
+    void searchWithoutTermsTest() {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager.getEntityManager());
+        fullTextEntityManager.purgeAll(Book.class);
+
+        entityManager.persist(Book.builder().title("A Lenda").author("Test").isbn("1").build());
+        entityManager.flush();
+        fullTextEntityManager.flushToIndexes();
+        Book filter = Book.builder().title("!!").author("test").build();
+
+        Page<Book> result = bookRepository.search(filter, PageRequest.of(0, 10));
+        Slice<Book> slice = bookRepository.searchSlice(filter, PageRequest.of(0, 10));
+
+        Assertions.assertThat(result.getContent()).isEmpty();
+        Assertions.assertThat(result.getTotalElements()).isZero();
+        Assertions.assertThat(slice.getContent()).isEmpty();
+        Assertions.assertThat(slice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de livros pelo indice textual informando se ha proxima")
+    void searchSliceTest() {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager.getEntityManager());
+        fullTextEntityManager.purgeAll(Book.class);
+
+        Book first = entityManager.persist(Book.builder().title("A Lenda").author("Test").isbn("1").build());
+        Book second = entityManager.persist(Book.builder().title("B Lenda").author("Test").isbn("2").build());
+        entityManager.persist(Book.builder().title("Outro livro").author("Test").isbn("3").build());
+        entityManager.flush();
+        fullTextEntityManager.flushToIndexes();
+        Book filter = Book.builder().title("lenda").build();
+
+        Slice<Book> firstSlice = bookRepository.searchSlice(filter, PageRequest.of(0, 1, Sort.by("isbn")));
+        Slice<Book> lastSlice = bookRepository.searchSlice(filter, PageRequest.of(1, 1, Sort.by("isbn")));
+
+        Assertions.assertThat(firstSlice.getContent()).containsExactly(first);
+        Assertions.assertThat(firstSlice.hasNext()).isTrue();
+        Assertions.assertThat(lastSlice.getContent()).containsExactly(second);
+        Assertions.assertThat(lastSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de todos os livros informando se ha proxima")
+    void findAllBySliceTest() {
+        Book first = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("1").build());
+        Book second = entityManager.persist(Book.builder().title("Other").author("Test").isbn("2").build());
+
+        Slice<Book> firstSlice = bookRepository.findAllBy(PageRequest.of(0, 1, Sort.by("id")));
+        Slice<Book> lastSlice = bookRepository.findAllBy(PageRequest.of(1, 1, Sort.by("id")));
+
+        Assertions.assertThat(firstSlice.getContent()).containsExactly(first);
+        Assertions.assertThat(firstSlice.hasNext()).isTrue();
+        Assertions.assertThat(lastSlice.getContent()).containsExactly(second);
+        Assertions.assertThat(lastSlice.hasNext()).isFalse();
+    }
 }
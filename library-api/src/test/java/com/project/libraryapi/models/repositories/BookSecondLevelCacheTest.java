@@ -0,0 +1,104 @@
+package com.project.libraryapi.models.repositories;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import com.project.libraryapi.config.HibernateCacheConfig;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookSecondLevelCacheTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve ler o livro do cache de segundo nivel ao carregar os emprestimos")
+    void loanBookFromSecondLevelCacheTest() {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Loan loan = loanRepository
+                .save(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        Statistics statistics = statistics();
+
+        inNewEntityManager(entityManager -> entityManager.find(Book.class, book.getId()));
+        statistics.clear();
+        Loan loaded = inNewEntityManager(entityManager -> entityManager.find(Loan.class, loan.getId()));
+
+        Assertions.assertThat(loaded.getBook().getIsbn()).isEqualTo("123456");
+        Assertions.assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve responder a busca por isbn pelo cache de consultas ate o livro mudar")
+    void findByIsbnFromQueryCacheTest() {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Statistics statistics = statistics();
+
+        bookRepository.findByIsbn("123456");
+        statistics.clear();
+        Assertions.assertThat(bookRepository.findByIsbn("123456")).isPresent();
+
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isZero();
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        book.setIsbn("654321");
+        bookRepository.save(book);
+        statistics.clear();
+
+        Assertions.assertThat(bookRepository.findByIsbn("123456")).isEmpty();
+        Assertions.assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    private <T> T inNewEntityManager(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -1,13 +1,23 @@
 package com.project.libraryapi.models.repositories;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
+import com.project.libraryapi.models.projections.LateLoanRow;
+import com.project.libraryapi.models.projections.LoanExportRow;
+import com.project.libraryapi.models.projections.LoanReturnRow;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,12 +26,14 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class LoanRepositoryTest {
 
     @Autowired
@@ -39,11 +51,81 @@ class LoanRepositoryTest {
         Loan loan = Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build();
         entityManager.persist(loan);
 
-        boolean exists = loanRepository.existsByBookAndNotReturned(book);
+        boolean exists = loanRepository.existsByBookAndReturnedFalse(book);
 
         Assertions.assertThat(exists).isTrue();
     }
 
+    @Test
+    @DisplayName("Deve tratar emprestimo sem status de devolucao como nao devolvido")
+    void normalizeNullReturnedTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+
+        Loan loan = new Loan();
+        loan.setBook(book);
+        loan.setCustomer("user");
+        loan.setLoanDate(LocalDate.now());
+        entityManager.persist(loan);
+
+        Assertions.assertThat(loan.getReturned()).isFalse();
+        Assertions.assertThat(loanRepository.existsByBookAndReturnedFalse(book)).isTrue();
+
+        loan.setReturned(true);
+        entityManager.flush();
+
+        Assertions.assertThat(loanRepository.existsByBookAndReturnedFalse(book)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve incrementar a versao do emprestimo apenas quando ele for devolvido")
+    void markReturnedIncrementsVersionTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Loan loan = entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        Long version = loan.getVersion();
+
+        Assertions.assertThat(loanRepository.markReturned(loan.getId())).isEqualTo(1);
+        Assertions.assertThat(loanRepository.markReturned(loan.getId())).isEqualTo(0);
+
+        Loan returned = entityManager.find(Loan.class, loan.getId());
+        Assertions.assertThat(returned.getReturned()).isTrue();
+        Assertions.assertThat(returned.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Deve inserir emprestimos em lote com os ids gerados e devolve-los uma unica vez")
+    void insertAllAndMarkAllReturnedTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Book other = entityManager.persist(Book.builder().title("Other").author("Test").isbn("654321").build());
+        Loan first = Loan.builder().book(book).customer("user").customerEmail("user@email.com")
+                .loanDate(LocalDate.now()).build();
+        Loan second = Loan.builder().book(other).customer("user").loanDate(LocalDate.now()).build();
+        entityManager.flush();
+
+        loanRepository.insertAll(Arrays.asList(first, second));
+
+        Assertions.assertThat(second.getId()).isGreaterThan(first.getId());
+        Assertions.assertThat(loanRepository.findReturnRows(Arrays.asList(first.getId(), second.getId())))
+                .containsExactlyInAnyOrder(new LoanReturnRow(first.getId(), book.getId(), false),
+                        new LoanReturnRow(second.getId(), other.getId(), false));
+        Assertions.assertThat(loanRepository.findById(first.getId()).get().getCustomerEmail())
+                .isEqualTo("user@email.com");
+
+        int[] returned = loanRepository.markAllReturned(Arrays.asList(second.getId(), first.getId(), second.getId()));
+
+        Assertions.assertThat(returned).containsExactly(1, 1, 0);
+        Assertions.assertThat(loanRepository.existsByBookAndReturnedFalse(book)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve usar os indices compostos nas consultas de emprestimos ativos")
+    void activeLoanQueriesUseIndexesTest() {
+        String existsPlan = explain("select l.id from loan l where l.book_id = 1 and l.returned = false");
+        String lateByDatePlan = explain("select l.id from loan l where l.loan_date = current_date and l.returned = false");
+
+        Assertions.assertThat(existsPlan).contains("IDX_LOAN_BOOK_RETURNED");
+        Assertions.assertThat(lateByDatePlan).contains("IDX_LOAN_LOAN_DATE_RETURNED");
+    }
+
     @Test
     @DisplayName("Deve buscar emprestimo pelo isbn do livro ou customer")
     void findByBookIsbnOrCustomerTest() {
@@ -74,10 +156,10 @@ class LoanRepositoryTest {
                 .loanDate(LocalDate.now().minusDays(5)).build();
         entityManager.persist(loan);
 
-        List<Loan> result = loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        List<LateLoanRow> result = loanRepository.findLateLoans(LocalDate.now().minusDays(4), "", 0l,
+                PageRequest.of(0, 10));
 
-        Assertions.assertThat(result).hasSize(1);
-        Assertions.assertThat(result).contains(loan);
+        Assertions.assertThat(result).containsExactly(new LateLoanRow(loan.getId(), "user@email.com"));
     }
 
     @Test
@@ -90,8 +172,161 @@ class LoanRepositoryTest {
                 .build();
         entityManager.persist(loan);
 
-        List<Loan> result = loanRepository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        List<LateLoanRow> result = loanRepository.findLateLoans(LocalDate.now().minusDays(4), "", 0l,
+                PageRequest.of(0, 10));
 
         Assertions.assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve obter emprestimos atrasados com email em blocos ordenados por email a partir do ultimo")
+    void findLateLoansChunkTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Loan first = entityManager.persist(Loan.builder().book(book).customer("user").customerEmail("b@email.com")
+                .loanDate(LocalDate.now().minusDays(5)).build());
+        Loan second = entityManager.persist(Loan.builder().book(book).customer("user").customerEmail("a@email.com")
+                .loanDate(LocalDate.now().minusDays(6)).build());
+        Loan third = entityManager.persist(Loan.builder().book(book).customer("user").customerEmail("a@email.com")
+                .loanDate(LocalDate.now().minusDays(7)).build());
+        entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now().minusDays(7))
+                .build());
+
+        List<LateLoanRow> firstChunk = loanRepository.findLateLoans(LocalDate.now().minusDays(4), "", 0l,
+                PageRequest.of(0, 2));
+        List<LateLoanRow> secondChunk = loanRepository.findLateLoans(LocalDate.now().minusDays(4), "a@email.com",
+                third.getId(), PageRequest.of(0, 2));
+
+        Assertions.assertThat(firstChunk).extracting("id").containsExactly(second.getId(), third.getId());
+        Assertions.assertThat(secondChunk).extracting("id").containsExactly(first.getId());
+    }
+
+    @Test
+    @DisplayName("Deve paginar emprestimos por cursor em ordem decrescente de data")
+    void findAllByKeysetTest() {
+        Book book = Book.builder().title("The legend").author("Test").isbn("123456").build();
+        entityManager.persist(book);
+
+        Loan older = entityManager.persist(
+                Loan.builder().book(book).customer("user").loanDate(LocalDate.now().minusDays(2)).build());
+        Loan newer = entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+
+        KeysetPageRequest request = KeysetPageRequest.builder().property("loanDate").direction(Sort.Direction.DESC)
+                .lastValue(newer.getLoanDate().toString()).lastId(newer.getId()).size(10).build();
+
+        KeysetSlice<Loan> result = loanRepository
+                .findAll(LoanSpecifications.byBookIsbnOrCustomer("123456", null), request);
+
+        Assertions.assertThat(result.getContent()).containsExactly(older);
+        Assertions.assertThat(result.isHasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve exportar emprestimos filtrados em ordem de id")
+    void streamForExportTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Book other = entityManager.persist(Book.builder().title("Other").author("Test").isbn("654321").build());
+
+        Loan first = entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(other).customer("other").loanDate(LocalDate.now()).build());
+        Loan third = entityManager.persist(Loan.builder().book(other).customer("user").loanDate(LocalDate.now()).build());
+
+        List<LoanExportRow> rows;
+        try (Stream<LoanExportRow> stream = loanRepository.streamForExport(null, "user", 1)) {
+            rows = stream.collect(Collectors.toList());
+        }
+
+        Assertions.assertThat(rows).extracting("id").containsExactly(first.getId(), third.getId());
+        Assertions.assertThat(rows.get(0).getIsbn()).isEqualTo("123456");
+        try (Stream<LoanExportRow> stream = loanRepository.streamForExport(null, null, 1)) {
+            Assertions.assertThat(stream.count()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma pagina de emprestimos com seus livros em uma consulta mais a contagem")
+    void findByBookIsbnOrCustomerStatementCountTest() {
+        for (int i = 0; i < 3; i++) {
+            Book book = entityManager
+                    .persist(Book.builder().title("The legend").author("Test").isbn("isbn-" + i).build());
+            entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Page<Loan> result = loanRepository.findByBookIsbnOrCustomer(null, "user", PageRequest.of(0, 2));
+
+        Assertions.assertThat(result.getContent()).extracting("book.isbn").doesNotContainNull();
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(3);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma pagina de emprestimos de um livro em uma consulta mais a contagem")
+    void findByBookStatementCountTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Page<Loan> result = loanRepository.findByBook(book, PageRequest.of(0, 2));
+
+        Assertions.assertThat(result.getContent()).hasSize(2);
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(3);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de emprestimos com seus livros em uma unica consulta, sem contagem")
+    void findSliceByBookIsbnOrCustomerStatementCountTest() {
+        for (int i = 0; i < 3; i++) {
+            Book book = entityManager
+                    .persist(Book.builder().title("The legend").author("Test").isbn("isbn-" + i).build());
+            entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Slice<Loan> first = loanRepository.findSliceByBookIsbnOrCustomer(null, "user", PageRequest.of(0, 2));
+
+        Assertions.assertThat(first.getContent()).hasSize(2).extracting("book.isbn").doesNotContainNull();
+        Assertions.assertThat(first.hasNext()).isTrue();
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Assertions.assertThat(loanRepository.findSliceByBookIsbnOrCustomer(null, "user", PageRequest.of(1, 2))
+                .hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar uma fatia de emprestimos de um livro em uma unica consulta, sem contagem")
+    void findSliceByBookStatementCountTest() {
+        Book book = entityManager.persist(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        for (int i = 0; i < 2; i++) {
+            entityManager.persist(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Slice<Loan> result = loanRepository.findSliceByBook(book, PageRequest.of(0, 2));
+
+        Assertions.assertThat(result.getContent()).hasSize(2);
+        Assertions.assertThat(result.hasNext()).isFalse();
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private String explain(String sql) {
+        return String.valueOf(entityManager.getEntityManager().createNativeQuery("explain " + sql).getSingleResult())
+                .toUpperCase();
+    }
+}
@@ -0,0 +1,141 @@
+package com.project.libraryapi.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import com.project.libraryapi.api.dtos.BookImportReportDTO;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.services.impl.BookImportServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "application.books.import.batch-size=2")
+@Import(BookImportServiceImpl.class)
+@ImportAutoConfiguration({ JacksonAutoConfiguration.class, ValidationAutoConfiguration.class })
+class BookImportServiceTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookImportService bookImportService;
+
+    @Test
+    @DisplayName("Deve importar livros em NDJSON reportando as linhas rejeitadas")
+    void importNdjsonTest() throws Exception {
+        entityManager.persist(Book.builder().title("Existing").author("Test").isbn("999").build());
+        entityManager.flush();
+
+        String body = "{\"title\":\"The legend\",\"author\":\"Test\",\"isbn\":\"1\"}\n"
+                + "{\"title\":\"\",\"author\":\"Test\",\"isbn\":\"2\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"title\":\"Another\",\"author\":\"Test\",\"isbn\":\"3\"}\n"
+                + "{\"title\":\"Again\",\"author\":\"Test\",\"isbn\":\"3\"}\n"
+                + "{\"title\":\"Copy\",\"author\":\"Test\",\"isbn\":\"999\"}\n";
+
+        BookImportReportDTO report = bookImportService.importBooks(stream(body), BookImportService.NDJSON);
+
+        Assertions.assertThat(report.getProcessed()).isEqualTo(6);
+        Assertions.assertThat(report.getImported()).isEqualTo(2);
+        Assertions.assertThat(report.getRejected()).isEqualTo(4);
+        Assertions.assertThat(report.getErrors()).extracting("line").containsExactlyInAnyOrder(2l, 3l, 6l, 7l);
+        Assertions.assertThat(bookRepository.findByIsbn("1")).isPresent();
+        Assertions.assertThat(bookRepository.findByIsbn("3").get().getTitle()).isEqualTo("Another");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar CSV com aspas sem fechamento no cabecalho")
+    void importCsvUnterminatedHeaderTest() {
+        String body = "isbn,\"title,author\n1,The legend,Test\n";
+
+        Throwable exception = Assertions
+                .catchThrowable(() -> bookImportService.importBooks(stream(body), BookImportService.CSV));
+
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Invalid CSV header");
+        Assertions.assertThat(bookRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em CSV com colunas entre aspas")
+    void importCsvTest() throws Exception {
+        String body = "isbn,title,author\n"
+                + "1,\"Legend, The\",Test\n"
+                + "2,\"Say \"\"hi\"\"\",Test\n";
+
+        BookImportReportDTO report = bookImportService.importBooks(stream(body), "text/csv;charset=UTF-8");
+
+        Assertions.assertThat(report.getImported()).isEqualTo(2);
+        Assertions.assertThat(report.getErrors()).isEmpty();
+        Assertions.assertThat(bookRepository.findByIsbn("1").get().getTitle()).isEqualTo("Legend, The");
+        Assertions.assertThat(bookRepository.findByIsbn("2").get().getTitle()).isEqualTo("Say \"hi\"");
+    }
+
+    @Test
+    @DisplayName("Deve importar colunas entre aspas que ocupam varias linhas do CSV")
+    void importCsvMultilineColumnTest() throws Exception {
+        String body = "isbn,title,author\n"
+                + "1,\"Legend,\nThe\",Test\n"
+                + "2,\"Say\n\"\"hi\"\"\n\",Test\n"
+                + "3,,Test\n"
+                + "4,\"Never closed,Test\n"
+                + "5,Lost,Test\n";
+
+        BookImportReportDTO report = bookImportService.importBooks(stream(body), BookImportService.CSV);
+
+        Assertions.assertThat(report.getImported()).isEqualTo(2);
+        Assertions.assertThat(report.getErrors()).extracting("line", "errors").containsExactly(
+                Assertions.tuple(7l, Collections.singletonList("title must not be empty")),
+                Assertions.tuple(8l, Collections.singletonList("Invalid row")));
+        Assertions.assertThat(bookRepository.findByIsbn("1").get().getTitle()).isEqualTo("Legend,\nThe");
+        Assertions.assertThat(bookRepository.findByIsbn("2").get().getTitle()).isEqualTo("Say\n\"hi\"");
+    }
+
+    @Test
+    @DisplayName("Deve reportar separadamente as linhas recusadas pelo banco por outro motivo que nao o isbn")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importRowRejectedByDatabaseTest() throws Exception {
+        String body = "isbn,title,author\n"
+                + "1,The legend,Test\n"
+                + "2," + String.join("", Collections.nCopies(300, "a")) + ",Test\n";
+
+        // each batch commits on its own, as outside a test transaction
+        try {
+            BookImportReportDTO report = bookImportService.importBooks(stream(body), BookImportService.CSV);
+
+            Assertions.assertThat(report.getImported()).isEqualTo(1);
+            Assertions.assertThat(report.getErrors()).extracting("line", "isbn", "errors").containsExactly(
+                    Assertions.tuple(3l, "2", Collections.singletonList("Book rejected by the database")));
+            Assertions.assertThat(bookRepository.findByIsbn("1")).isPresent();
+        } finally {
+            bookRepository.deleteAll();
+        }
+    }
+
+    private InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,109 @@
+package com.project.libraryapi.services;
+
+import java.util.Optional;
+
+import com.project.libraryapi.config.CacheConfig;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.services.impl.BookServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@ContextConfiguration(classes = { CacheConfig.class, BookServiceImpl.class, BookServiceCacheTest.Config.class })
+@TestPropertySource(properties = { "application.books.batch.max-size=500", "application.books.batch.chunk-size=100" })
+class BookServiceCacheTest {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.BOOKS_BY_ISBN);
+        }
+    }
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).clear();
+    }
+
+    @Test
+    @DisplayName("Deve consultar a base apenas uma vez para o mesmo isbn")
+    void getBookByIsbnCachedTest() {
+        String isbn = "123456";
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn(isbn).build();
+        Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+
+        bookService.getBookByIsbn(isbn);
+        Optional<Book> foundBook = bookService.getBookByIsbn(isbn);
+
+        Assertions.assertThat(foundBook).contains(book);
+        Mockito.verify(bookRepository, Mockito.times(1)).findByIsbn(isbn);
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar em cache um isbn inexistente")
+    void getBookByIsbnNotFoundNotCachedTest() {
+        String isbn = "123456";
+        Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty());
+
+        bookService.getBookByIsbn(isbn);
+        bookService.getBookByIsbn(isbn);
+
+        Mockito.verify(bookRepository, Mockito.times(2)).findByIsbn(isbn);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar um livro")
+    void updateBookEvictsCacheTest() {
+        String isbn = "123456";
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn(isbn).build();
+        Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+        Mockito.when(bookRepository.save(book)).thenReturn(book);
+
+        bookService.getBookByIsbn(isbn);
+        bookService.update(book);
+        bookService.getBookByIsbn(isbn);
+
+        Mockito.verify(bookRepository, Mockito.times(2)).findByIsbn(isbn);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao deletar um livro")
+    void deleteBookEvictsCacheTest() {
+        String isbn = "123456";
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn(isbn).build();
+        Mockito.when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+
+        bookService.getBookByIsbn(isbn);
+        bookService.delete(book);
+
+        Assertions.assertThat(cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).get(isbn)).isNull();
+    }
+}
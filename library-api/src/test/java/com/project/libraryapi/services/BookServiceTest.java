@@ -1,27 +1,33 @@
 package com.project.libraryapi.services;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import com.project.libraryapi.api.exceptions.BusinessException;
 import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.pagination.KeysetPageRequest;
+import com.project.libraryapi.models.pagination.KeysetSlice;
 import com.project.libraryapi.models.repositories.BookRepository;
 import com.project.libraryapi.services.impl.BookServiceImpl;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Example;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -35,6 +41,8 @@ class BookServiceTest {
     @BeforeEach
     void setUp() {
         this.bookService = new BookServiceImpl(bookRepository);
+        ReflectionTestUtils.setField(bookService, "batchMaxSize", 3);
+        ReflectionTestUtils.setField(bookService, "batchChunkSize", 2);
     }
 
     @Test
@@ -45,8 +53,7 @@ class BookServiceTest {
         PageRequest pageRequest = PageRequest.of(0, 10);
         Page<Book> page = new PageImpl<Book>(bookList, pageRequest, 1);
 
-        Mockito.when(bookRepository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
-                .thenReturn(page);
+        Mockito.when(bookRepository.search(Mockito.any(Book.class), Mockito.any(PageRequest.class))).thenReturn(page);
 
         Page<Book> result = bookService.find(book, pageRequest);
 
@@ -56,6 +63,73 @@ class BookServiceTest {
         Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve buscar livros por cursor no indice ordenando pelo id")
+    void findBooksAfterCursorTest() {
+        Book filter = Book.builder().title("legend").build();
+        KeysetPageRequest byId = KeysetPageRequest.builder().property("id").direction(Sort.Direction.ASC).size(10)
+                .build();
+        KeysetSlice<Book> slice = new KeysetSlice<>(Arrays.asList(filter), false);
+
+        Mockito.when(bookRepository.searchAfter(filter, byId)).thenReturn(slice);
+
+        Assertions.assertThat(bookService.find(filter, byId)).isSameAs(slice);
+        Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.any(), Mockito.any(KeysetPageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar busca por cursor com filtro ordenada por outra propriedade que nao o id")
+    void findBooksAfterCursorSortedByTitleTest() {
+        KeysetPageRequest byTitle = KeysetPageRequest.builder().property("title").direction(Sort.Direction.ASC)
+                .size(10).build();
+
+        Throwable exception = Assertions
+                .catchThrowable(() -> bookService.find(Book.builder().title("legend").build(), byTitle));
+
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("A filtered search with a cursor can only be sorted by id");
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Deve obter livros por isbns em blocos, na ordem pedida e com nulo para os inexistentes")
+    void getBooksByIsbnsTest() {
+        Book first = Book.builder().id(1l).title("The legend").author("Test").isbn("1").build();
+        Book third = Book.builder().id(3l).title("Other").author("Test").isbn("3").build();
+
+        Mockito.when(bookRepository.findByIsbnIn(Arrays.asList("3", "2"))).thenReturn(Arrays.asList(third));
+        Mockito.when(bookRepository.findByIsbnIn(Arrays.asList("1"))).thenReturn(Arrays.asList(first));
+
+        List<Book> books = bookService.getByIsbns(Arrays.asList("3", "2", "1"));
+
+        Assertions.assertThat(books).containsExactly(third, null, first);
+        Mockito.verify(bookRepository, Mockito.times(2)).findByIsbnIn(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar lote de livros acima do limite")
+    void getBooksBatchTooLargeTest() {
+        Throwable exception = Assertions.catchThrowable(() -> bookService.getByIds(Arrays.asList(1l, 2l, 3l, 4l)));
+
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class).hasMessageContaining("at most 3");
+        Mockito.verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    @DisplayName("Deve listar livros sem consultar o indice quando nao houver filtros")
+    void findBooksWithoutFilterTest() {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Page<Book> page = new PageImpl<Book>(Arrays.asList(book), pageRequest, 1);
+
+        Mockito.when(bookRepository.findAll(pageRequest)).thenReturn(page);
+
+        Page<Book> result = bookService.find(new Book(), pageRequest);
+
+        Assertions.assertThat(result.getContent()).containsExactly(book);
+        Mockito.verify(bookRepository, Mockito.never()).search(Mockito.any(Book.class), Mockito.any(PageRequest.class));
+    }
+
     @Test
     @DisplayName("Deve obter um livro por Id")
     void getByIdTest() {
@@ -88,7 +162,7 @@ class BookServiceTest {
     void saveBookTest() {
         Book book = Book.builder().title("The legend").author("Test").isbn("123456").build();
 
-        Mockito.when(bookRepository.save(book))
+        Mockito.when(bookRepository.saveAndFlush(book))
                 .thenReturn(Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build());
 
         Book savedBook = bookService.save(book);
@@ -99,6 +173,33 @@ class BookServiceTest {
         Assertions.assertThat(savedBook.getIsbn()).isEqualTo("123456");
     }
 
+    @Test
+    @DisplayName("Deve lancar erro de negocio ao salvar um livro com isbn duplicado")
+    void saveBookWithDuplicatedIsbnTest() {
+        Book book = Book.builder().title("The legend").author("Test").isbn("123456").build();
+
+        Mockito.when(bookRepository.saveAndFlush(book))
+                .thenThrow(violationOf("PUBLIC.UK_BOOK_ISBN_INDEX_1 ON PUBLIC.BOOK(ISBN) VALUES 1"));
+
+        Throwable exception = Assertions.catchThrowable(() -> bookService.save(book));
+
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn já cadastrado");
+        Mockito.verify(bookRepository, Mockito.never()).existsByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve propagar violacoes de restricao que nao sao de isbn duplicado")
+    void saveBookWithOtherViolationTest() {
+        Book book = Book.builder().title("The legend").author("Test").isbn("123456").build();
+        DataIntegrityViolationException violation = violationOf(null);
+
+        Mockito.when(bookRepository.saveAndFlush(book)).thenThrow(violation);
+
+        Throwable exception = Assertions.catchThrowable(() -> bookService.save(book));
+
+        Assertions.assertThat(exception).isSameAs(violation);
+    }
+
     @Test
     @DisplayName("Deve atualizar um livro")
     void updateBookTest() {
@@ -161,4 +262,9 @@ class BookServiceTest {
         Assertions.assertThat(foundBook.get().getAuthor()).isEqualTo(book.getAuthor());
         Assertions.assertThat(foundBook.get().getIsbn()).isEqualTo(book.getIsbn());
     }
+
+    private static DataIntegrityViolationException violationOf(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
 }
@@ -0,0 +1,97 @@
+package com.project.libraryapi.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.project.libraryapi.models.entities.EmailOutboxStatus;
+import com.project.libraryapi.models.repositories.EmailOutboxRepository;
+import com.project.libraryapi.services.impl.EmailOutboxServiceImpl;
+import com.project.libraryapi.services.impl.EmailServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = { "application.mail.outbox.workers=1", "application.mail.outbox.batch-size=5",
+        "application.mail.outbox.messages-per-second=2" })
+@Import({ EmailServiceImpl.class, EmailOutboxServiceImpl.class, EmailOutboxRateLimitTest.Config.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxRateLimitTest {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    EmailOutboxService emailOutboxService;
+
+    @Autowired
+    EmailOutboxRepository emailOutboxRepository;
+
+    @MockBean
+    JavaMailSender javaMailSender;
+
+    @AfterEach
+    void tearDown() {
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve enviar um lote em rajadas de no maximo um segundo de mensagens")
+    void dispatchSendsBatchWithinRateTest() throws Exception {
+        List<Integer> burstSizes = new CopyOnWriteArrayList<>();
+        List<Long> burstTimes = new CopyOnWriteArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            burstSizes.add(invocation.getArguments().length);
+            burstTimes.add(System.nanoTime());
+            return null;
+        }).when(javaMailSender).send((SimpleMailMessage[]) Mockito.any());
+        emailService.sendMails(Arrays.asList("a@email.com", "b@email.com", "c@email.com", "d@email.com",
+                "e@email.com"), "late");
+
+        emailOutboxService.dispatch();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (emailOutboxRepository.countByStatus(EmailOutboxStatus.SENT) < 5
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assertions.assertThat(emailOutboxRepository.countByStatus(EmailOutboxStatus.SENT)).isEqualTo(5);
+        Assertions.assertThat(burstSizes).containsExactly(2, 2, 1);
+        // the limiter holds each burst one interval per message of the previous one, give or take scheduling
+        for (int i = 1; i < burstTimes.size(); i++) {
+            Assertions.assertThat(burstTimes.get(i) - burstTimes.get(i - 1))
+                    .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(900));
+        }
+    }
+}
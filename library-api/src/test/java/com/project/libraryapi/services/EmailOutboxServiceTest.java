@@ -0,0 +1,155 @@
+package com.project.libraryapi.services;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.mail.internet.MimeMessage;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.project.libraryapi.models.entities.EmailOutbox;
+import com.project.libraryapi.models.entities.EmailOutboxStatus;
+import com.project.libraryapi.models.repositories.EmailOutboxRepository;
+import com.project.libraryapi.services.impl.EmailOutboxServiceImpl;
+import com.project.libraryapi.services.impl.EmailServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = { "spring.mail.host=localhost", "spring.mail.port=3025", "spring.mail.username=library",
+        "spring.mail.password=secret", "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "application.mail.outbox.workers=2", "application.mail.outbox.batch-size=2",
+        "application.mail.outbox.messages-per-second=1000" })
+@Import({ EmailServiceImpl.class, EmailOutboxServiceImpl.class, EmailOutboxServiceTest.Config.class })
+@ImportAutoConfiguration(MailSenderAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxServiceTest {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    EmailOutboxService emailOutboxService;
+
+    @Autowired
+    EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    GreenMail greenMail;
+
+    @BeforeEach
+    void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.setUser("library", "secret");
+        greenMail.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        greenMail.stop();
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve enviar uma mensagem por destinatario a partir da caixa de saida")
+    void dispatchSendsOneMessagePerRecipientTest() throws Exception {
+        emailService.sendMails(Arrays.asList("a@email.com", "b@email.com", "c@email.com", "a@email.com"), "late");
+
+        emailOutboxService.dispatch();
+
+        Assertions.assertThat(greenMail.waitForIncomingEmail(5000, 3)).isTrue();
+        List<EmailOutbox> emails = await(email -> email.getStatus() == EmailOutboxStatus.SENT);
+        Assertions.assertThat(emails).extracting("recipient").containsExactlyInAnyOrder("a@email.com",
+                "b@email.com", "c@email.com");
+        for (MimeMessage message : greenMail.getReceivedMessages()) {
+            Assertions.assertThat(message.getAllRecipients()).hasSize(1);
+        }
+        Assertions.assertThat(meterRegistry.get("library.mail.outbox.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reagendar com backoff quando o servidor smtp estiver indisponivel")
+    void dispatchReschedulesOnFailureTest() throws Exception {
+        greenMail.stop();
+        emailService.sendMails(Arrays.asList("a@email.com"), "late");
+
+        emailOutboxService.dispatch();
+
+        List<EmailOutbox> emails = await(email -> email.getAttempts() == 1);
+        EmailOutbox email = emails.get(0);
+        Assertions.assertThat(email.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        Assertions.assertThat(email.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        Assertions.assertThat(email.getLastError()).isNotNull();
+        Assertions.assertThat(email.getClaimToken()).isNull();
+    }
+
+    @Test
+    @DisplayName("Nao deve salvar o resultado de um envio liberado e reivindicado por outro worker")
+    void staleWorkerCannotOverwriteNewClaimTest() {
+        emailService.sendMails(Arrays.asList("a@email.com"), "late");
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = Arrays.asList(emailOutboxRepository.findAll().get(0).getId());
+
+        transactionTemplate.execute(status -> emailOutboxRepository.claim(ids, "old", now));
+        List<EmailOutbox> staleBatch = emailOutboxRepository.findByClaimToken("old");
+        transactionTemplate.execute(status -> emailOutboxRepository.releaseStale(now.plusSeconds(1)));
+        transactionTemplate.execute(status -> emailOutboxRepository.claim(ids, "new", now));
+
+        staleBatch.get(0).setStatus(EmailOutboxStatus.SENT);
+        Assertions.assertThatThrownBy(
+                () -> transactionTemplate.execute(status -> emailOutboxRepository.saveAll(staleBatch)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        EmailOutbox email = emailOutboxRepository.findById(ids.get(0)).get();
+        Assertions.assertThat(email.getStatus()).isEqualTo(EmailOutboxStatus.SENDING);
+        Assertions.assertThat(email.getClaimToken()).isEqualTo("new");
+    }
+
+    private List<EmailOutbox> await(Predicate<EmailOutbox> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<EmailOutbox> emails = emailOutboxRepository.findAll();
+        while (!emails.stream().allMatch(condition) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            emails = emailOutboxRepository.findAll();
+        }
+        Assertions.assertThat(emails).allMatch(condition);
+        return emails;
+    }
+}
@@ -0,0 +1,278 @@
+package com.project.libraryapi.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.project.libraryapi.api.dtos.BookLoanStatsDTO;
+import com.project.libraryapi.api.dtos.LoanBulkCheckoutDTO;
+import com.project.libraryapi.api.dtos.LoanBulkResultDTO;
+import com.project.libraryapi.api.exceptions.BusinessException;
+import com.project.libraryapi.models.entities.Book;
+import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.repositories.BookAvailabilityRepository;
+import com.project.libraryapi.models.repositories.BookRepository;
+import com.project.libraryapi.models.repositories.LoanRepository;
+import com.project.libraryapi.services.impl.LoanServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.extern.slf4j.Slf4j;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(LoanServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Slf4j
+class LoanCheckoutContentionTest {
+
+    static final int THREADS = Integer.getInteger("threads", 8);
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookAvailabilityRepository bookAvailabilityRepository;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookAvailabilityRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve emprestar o livro apenas uma vez quando varias requisicoes chegam juntas")
+    void concurrentCheckoutOfSameBookTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS * 2; i++) {
+            String customer = "user" + i;
+            tasks.add(() -> {
+                start.await();
+                return checkout(book, customer, rejected);
+            });
+        }
+        List<Future<Boolean>> results = run(tasks, start);
+
+        long loaned = 0;
+        for (Future<Boolean> result : results) {
+            loaned += result.get() ? 1 : 0;
+        }
+        Assertions.assertThat(loaned).isEqualTo(1);
+        Assertions.assertThat(rejected.get()).isEqualTo(THREADS * 2 - 1);
+        Assertions.assertThat(loanRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar cada livro uma unica vez sob concorrencia")
+    void concurrentCheckoutThroughputTest() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            books.add(Book.builder().title("Book " + i).author("Test").isbn("isbn-" + i).build());
+        }
+        List<Book> saved = bookRepository.saveAll(books);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String customer = "user" + i;
+            List<Book> order = new ArrayList<>(saved);
+            Collections.shuffle(order);
+            tasks.add(() -> {
+                start.await();
+                for (Book book : order) {
+                    checkout(book, customer, rejected);
+                }
+                return true;
+            });
+        }
+        long begin = System.nanoTime();
+        for (Future<Boolean> result : run(tasks, start)) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        int attempts = THREADS * saved.size();
+        log.info("{} checkout attempts in {} s: {} attempts/s, {} loans", attempts, seconds,
+                Math.round(attempts / seconds), loanRepository.count());
+        Assertions.assertThat(loanRepository.count()).isEqualTo(saved.size());
+        Assertions.assertThat(rejected.get()).isEqualTo(attempts - saved.size());
+        for (Book book : saved) {
+            Assertions.assertThat(loanRepository.existsByBookAndReturnedFalse(book)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve emprestar e devolver livros em lote informando o resultado de cada item")
+    void bulkCheckoutAndReturnTest() {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        bookRepository.save(Book.builder().title("Other").author("Test").isbn("654321").build());
+        LoanBulkCheckoutDTO checkout = LoanBulkCheckoutDTO.builder().customer("user").customerEmail("user@email.com")
+                .isbns(Arrays.asList("123456", "000000", "123456", "654321")).build();
+
+        List<LoanBulkResultDTO> loaned = loanService.checkout(checkout);
+
+        Assertions.assertThat(loaned).extracting("success").containsExactly(true, false, false, true);
+        Assertions.assertThat(loaned).extracting("error").containsExactly(null, "Book not found",
+                "Book already loaned", null);
+        Long loanId = loaned.get(0).getLoanId();
+        Assertions.assertThat(loanRepository.findById(loanId).get().getBook().getId()).isEqualTo(book.getId());
+
+        List<LoanBulkResultDTO> returned = loanService
+                .returnLoans(Arrays.asList(loanId, loaned.get(3).getLoanId(), loanId, -1l));
+
+        Assertions.assertThat(returned).extracting("error").containsExactly(null, null, "Loan already returned",
+                "Loan not found");
+        Assertions.assertThat(loanService.checkout(checkout)).extracting("success").containsExactly(true, false,
+                false, true);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar cada livro uma unica vez com emprestimos em lote concorrentes")
+    void concurrentBulkCheckoutTest() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            books.add(Book.builder().title("Book " + i).author("Test").isbn("isbn-" + i).build());
+        }
+        List<String> isbns = bookRepository.saveAll(books).stream().map(Book::getIsbn).collect(Collectors.toList());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger loaned = new AtomicInteger();
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String customer = "user" + i;
+            List<String> order = new ArrayList<>(isbns);
+            Collections.shuffle(order);
+            tasks.add(() -> {
+                start.await();
+                loaned.addAndGet((int) loanService
+                        .checkout(LoanBulkCheckoutDTO.builder().customer(customer).isbns(order).build()).stream()
+                        .filter(LoanBulkResultDTO::isSuccess).count());
+                return true;
+            });
+        }
+        for (Future<Boolean> result : run(tasks, start)) {
+            result.get();
+        }
+
+        // every batch asks for every book, so each one is loaned by exactly one of them
+        Assertions.assertThat(loaned.get()).isEqualTo(isbns.size());
+        Assertions.assertThat(loanRepository.count()).isEqualTo(loaned.get());
+        Assertions.assertThat(loanRepository.findAll().stream().map(loan -> loan.getBook().getId()).distinct()
+                .count()).isEqualTo(loaned.get());
+        Assertions.assertThat(loanService.getStats()).extracting("activeLoans", "totalLoans")
+                .containsExactly((long) loaned.get(), (long) loaned.get());
+    }
+
+    @Test
+    @DisplayName("Deve manter os contadores de emprestimos a cada emprestimo e devolucao")
+    void loanCountersTest() {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Book other = bookRepository.save(Book.builder().title("Other").author("Test").isbn("654321").build());
+        // a loan made before the availability of the book was recorded
+        loanRepository
+                .save(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).returned(true).build());
+
+        Assertions.assertThat(loanService.getBookStats(book)).extracting("available", "activeLoans", "totalLoans")
+                .containsExactly(true, 0l, 1l);
+
+        Loan loan = loanService.save(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        loanService.checkout(LoanBulkCheckoutDTO.builder().customer("user").isbns(Arrays.asList("654321")).build());
+
+        Assertions.assertThat(loanService.getBookStats(book)).extracting("available", "activeLoans", "totalLoans")
+                .containsExactly(false, 1l, 2l);
+        Assertions.assertThat(loanService.getStats()).extracting("activeLoans", "totalLoans").containsExactly(2l, 3l);
+
+        loanService.returnLoan(loan);
+        loanService.save(Loan.builder().book(book).customer("other").loanDate(LocalDate.now()).build());
+        loanService.returnLoans(Arrays.asList(loanRepository.findAll().stream()
+                .filter(candidate -> candidate.getBook().getId().equals(other.getId())).findFirst().get().getId()));
+
+        BookLoanStatsDTO stats = loanService.getBookStats(book);
+        Assertions.assertThat(stats.getTotalLoans()).isEqualTo(loanRepository.countByBook(book)).isEqualTo(3);
+        Assertions.assertThat(stats.getActiveLoans()).isEqualTo(1);
+        Assertions.assertThat(loanService.getStats()).extracting("activeLoans", "totalLoans").containsExactly(1l, 4l);
+    }
+
+    @Test
+    @DisplayName("Deve contar nas estatisticas os emprestimos anteriores ao registro da disponibilidade")
+    void statsWithLoansBeforeAvailabilityTest() {
+        Book book = bookRepository.save(Book.builder().title("The legend").author("Test").isbn("123456").build());
+        Book other = bookRepository.save(Book.builder().title("Other").author("Test").isbn("654321").build());
+        // loans made before the availability of either book was recorded
+        loanRepository
+                .save(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).returned(true).build());
+        loanRepository.save(Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build());
+        loanRepository
+                .save(Loan.builder().book(other).customer("user").loanDate(LocalDate.now()).returned(true).build());
+
+        Assertions.assertThat(loanService.getStats()).extracting("activeLoans", "totalLoans").containsExactly(1l, 3l);
+
+        loanService.save(Loan.builder().book(other).customer("user").loanDate(LocalDate.now()).build());
+
+        Assertions.assertThat(loanService.getStats()).extracting("activeLoans", "totalLoans").containsExactly(2l, 4l);
+        Assertions.assertThat(loanService.getBookStats(book)).extracting("activeLoans", "totalLoans")
+                .containsExactly(1l, 2l);
+        Assertions.assertThat(loanService.getBookStats(other)).extracting("activeLoans", "totalLoans")
+                .containsExactly(1l, 2l);
+    }
+
+    private boolean checkout(Book book, String customer, AtomicInteger rejected) {
+        try {
+            loanService.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+            return true;
+        } catch (BusinessException ex) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    private List<Future<Boolean>> run(List<Callable<Boolean>> tasks, CountDownLatch start) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Callable<Boolean> task : tasks) {
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+            executor.shutdown();
+            Assertions.assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
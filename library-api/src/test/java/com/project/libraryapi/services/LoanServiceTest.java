@@ -2,13 +2,21 @@ package com.project.libraryapi.services;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import com.project.libraryapi.api.dtos.LoanBulkCheckoutDTO;
+import com.project.libraryapi.api.dtos.LoanBulkResultDTO;
 import com.project.libraryapi.api.dtos.LoanFilterDTO;
+import com.project.libraryapi.api.dtos.LoanStatsDTO;
 import com.project.libraryapi.api.exceptions.BusinessException;
 import com.project.libraryapi.models.entities.Book;
 import com.project.libraryapi.models.entities.Loan;
+import com.project.libraryapi.models.projections.LoanReturnRow;
+import com.project.libraryapi.models.projections.LoanTotalsRow;
+import com.project.libraryapi.models.repositories.BookAvailabilityRepository;
+import com.project.libraryapi.models.repositories.BookRepository;
 import com.project.libraryapi.models.repositories.LoanRepository;
 import com.project.libraryapi.services.impl.LoanServiceImpl;
 
@@ -25,6 +33,7 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -35,9 +44,16 @@ class LoanServiceTest {
     @MockBean
     LoanRepository loanRepository;
 
+    @MockBean
+    BookAvailabilityRepository bookAvailabilityRepository;
+
+    @MockBean
+    BookRepository bookRepository;
+
     @BeforeEach
     void setUp() {
-        this.loanService = new LoanServiceImpl(loanRepository);
+        this.loanService = new LoanServiceImpl(loanRepository, bookAvailabilityRepository, bookRepository);
+        ReflectionTestUtils.setField(loanService, "bulkMaxSize", 4);
     }
 
     @Test
@@ -69,7 +85,7 @@ class LoanServiceTest {
         Loan savingLoan = Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build();
         Loan savedLoan = Loan.builder().id(1l).book(book).customer("user").loanDate(LocalDate.now()).build();
 
-        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(false);
+        Mockito.when(bookAvailabilityRepository.checkout(1l)).thenReturn(1);
         Mockito.when(loanRepository.save(savingLoan)).thenReturn(savedLoan);
 
         Loan loan = loanService.save(savingLoan);
@@ -86,7 +102,8 @@ class LoanServiceTest {
         Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
         Loan savingLoan = Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build();
 
-        Mockito.when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+        Mockito.when(bookAvailabilityRepository.checkout(1l)).thenReturn(0);
+        Mockito.when(bookAvailabilityRepository.existsById(1l)).thenReturn(true);
 
         Throwable exception = Assertions.catchThrowable(() -> loanService.save(savingLoan));
 
@@ -96,6 +113,114 @@ class LoanServiceTest {
         Mockito.verify(loanRepository, Mockito.never()).save(savingLoan);
     }
 
+    @Test
+    @DisplayName("Deve registrar a disponibilidade no primeiro emprestimo do livro")
+    void firstLoanRecordsAvailabilityTest() {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+        Loan savingLoan = Loan.builder().book(book).customer("user").loanDate(LocalDate.now()).build();
+
+        Mockito.when(bookAvailabilityRepository.checkout(1l)).thenReturn(0, 1);
+        Mockito.when(bookAvailabilityRepository.existsById(1l)).thenReturn(false);
+        Mockito.when(loanRepository.save(savingLoan)).thenReturn(savingLoan);
+
+        loanService.save(savingLoan);
+
+        Mockito.verify(bookAvailabilityRepository).recordAll(Collections.singletonList(1l));
+        Mockito.verify(loanRepository).save(savingLoan);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro ao devolver o emprestimo apenas uma vez")
+    void returnLoanTest() {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+        Loan loan = Loan.builder().id(1l).book(book).customer("user").loanDate(LocalDate.now()).build();
+
+        Mockito.when(loanRepository.markReturned(1l)).thenReturn(1, 0);
+
+        loanService.returnLoan(loan);
+        loanService.returnLoan(loan);
+
+        Assertions.assertThat(loan.getReturned()).isTrue();
+        Mockito.verify(bookAvailabilityRepository, Mockito.times(1)).release(1l);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar livros em lote informando o resultado de cada isbn")
+    void bulkCheckoutTest() {
+        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
+        Book loaned = Book.builder().id(2l).title("Other").author("Test").isbn("654321").build();
+        List<Long> bookIds = Arrays.asList(1l, 2l);
+
+        Mockito.when(bookRepository.findByIsbnIn(Mockito.anyCollection())).thenReturn(Arrays.asList(book, loaned));
+        Mockito.when(bookAvailabilityRepository.findRecordedBookIds(bookIds)).thenReturn(Collections.singleton(2l));
+        Mockito.when(bookAvailabilityRepository.checkoutAll(bookIds)).thenReturn(new int[] { 1, 0 });
+        Mockito.doAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            loans.get(0).setId(10l);
+            return null;
+        }).when(loanRepository).insertAll(Mockito.anyList());
+
+        List<LoanBulkResultDTO> results = loanService.checkout(LoanBulkCheckoutDTO.builder().customer("user")
+                .isbns(Arrays.asList("123456", "000000", "654321")).build());
+
+        Assertions.assertThat(results).extracting("isbn", "loanId", "success", "error").containsExactly(
+                Assertions.tuple("123456", 10l, true, null), Assertions.tuple("000000", null, false, "Book not found"),
+                Assertions.tuple("654321", null, false, "Book already loaned"));
+        Mockito.verify(bookAvailabilityRepository).recordAll(Collections.singletonList(1l));
+    }
+
+    @Test
+    @DisplayName("Deve devolver emprestimos em lote liberando apenas os livros devolvidos")
+    void bulkReturnTest() {
+        List<Long> ids = Arrays.asList(1l, 2l, 3l);
+        Mockito.when(loanRepository.findReturnRows(Mockito.anyCollection()))
+                .thenReturn(Arrays.asList(new LoanReturnRow(1l, 10l, false), new LoanReturnRow(3l, 30l, true)));
+        Mockito.when(loanRepository.markAllReturned(Arrays.asList(1l, 3l))).thenReturn(new int[] { 1, 0 });
+
+        List<LoanBulkResultDTO> results = loanService.returnLoans(ids);
+
+        Assertions.assertThat(results).extracting("loanId", "success", "error").containsExactly(
+                Assertions.tuple(1l, true, null), Assertions.tuple(2l, false, "Loan not found"),
+                Assertions.tuple(3l, false, "Loan already returned"));
+        Mockito.verify(bookAvailabilityRepository).releaseAll(Collections.singletonList(10l));
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro ao devolver mais emprestimos que o limite do lote")
+    void bulkReturnTooLargeTest() {
+        List<Long> ids = Arrays.asList(1l, 2l, 3l, 4l, 5l);
+
+        Throwable exception = Assertions.catchThrowable(() -> loanService.returnLoans(ids));
+
+        Assertions.assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage("A bulk request can have at most 4 items");
+        Mockito.verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    @DisplayName("Deve somar os contadores de emprestimos como zero quando nenhum livro foi emprestado")
+    void emptyStatsTest() {
+        Mockito.when(bookAvailabilityRepository.sumLoanTotals()).thenReturn(new LoanTotalsRow(null, null));
+        Mockito.when(loanRepository.sumUnrecordedLoanTotals()).thenReturn(new LoanTotalsRow(null, 0l));
+
+        LoanStatsDTO stats = loanService.getStats();
+
+        Assertions.assertThat(stats.getActiveLoans()).isZero();
+        Assertions.assertThat(stats.getTotalLoans()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve somar os emprestimos dos livros sem disponibilidade registrada")
+    void statsWithUnrecordedLoansTest() {
+        Mockito.when(bookAvailabilityRepository.sumLoanTotals()).thenReturn(new LoanTotalsRow(1l, 5l));
+        Mockito.when(loanRepository.sumUnrecordedLoanTotals()).thenReturn(new LoanTotalsRow(1l, 2l));
+
+        LoanStatsDTO stats = loanService.getStats();
+
+        Assertions.assertThat(stats.getActiveLoans()).isEqualTo(2);
+        Assertions.assertThat(stats.getTotalLoans()).isEqualTo(7);
+    }
+
     @Test
     @DisplayName("Deve obter as informacoes de um emprestimo pelo Id")
     void getLoanDetailsTest() {
@@ -114,21 +239,4 @@ class LoanServiceTest {
         Assertions.assertThat(result.get().getLoanDate()).isEqualTo(loan.getLoanDate());
         Mockito.verify(loanRepository).findById(id);
     }
-
-    @Test
-    @DisplayName("Deve atualizar um empréstimo")
-    void updateLoanTest() {
-        Book book = Book.builder().id(1l).title("The legend").author("Test").isbn("123456").build();
-        Loan loan = Loan.builder().id(1l).book(book).customer("user").loanDate(LocalDate.now()).returned(false).build();
-
-        Mockito.when(loanRepository.save(loan)).thenReturn(loan);
-
-        Loan updatedLoan = loanService.save(loan);
-
-        Assertions.assertThat(updatedLoan.getId()).isEqualTo(loan.getId());
-        Assertions.assertThat(updatedLoan.getBook()).isEqualTo(loan.getBook());
-        Assertions.assertThat(updatedLoan.getCustomer()).isEqualTo(loan.getCustomer());
-        Assertions.assertThat(updatedLoan.getLoanDate()).isEqualTo(loan.getLoanDate());
-        Mockito.verify(loanRepository).save(loan);
-    }
 }
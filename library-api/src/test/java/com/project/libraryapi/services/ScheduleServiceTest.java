@@ -0,0 +1,80 @@
+package com.project.libraryapi.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.project.libraryapi.models.projections.LateLoanRow;
+import com.project.libraryapi.services.impl.ScheduleServiceImpl;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ScheduleServiceTest {
+
+    ScheduleService scheduleService;
+
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduleService = new ScheduleServiceImpl(loanService, emailService, meterRegistry);
+        ReflectionTestUtils.setField(scheduleService, "message", "late");
+        ReflectionTestUtils.setField(scheduleService, "chunkSize", 2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar emails de emprestimos atrasados em blocos")
+    void sendMailToLateLoansInChunksTest() {
+        Mockito.when(loanService.getLateLoans("", 0l, 2))
+                .thenReturn(Arrays.asList(new LateLoanRow(3l, "a@email.com"), new LateLoanRow(1l, "b@email.com")));
+        Mockito.when(loanService.getLateLoans("b@email.com", 1l, 2))
+                .thenReturn(Collections.singletonList(new LateLoanRow(7l, "c@email.com")));
+
+        scheduleService.sendMailToLateLoans();
+
+        Mockito.verify(emailService).sendMails(Arrays.asList("a@email.com", "b@email.com"), "late");
+        Mockito.verify(emailService).sendMails(Collections.singletonList("c@email.com"), "late");
+        Mockito.verify(loanService, Mockito.never()).getLateLoans("c@email.com", 7l, 2);
+        Mockito.verifyNoMoreInteractions(emailService);
+        Assertions.assertThat(meterRegistry.counter("library.late-loans.processed").count()).isEqualTo(3);
+        Assertions.assertThat(meterRegistry.counter("library.late-loans.chunks").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar um unico email por cliente mesmo com atrasos em blocos diferentes")
+    void sendOneMailPerCustomerAcrossChunksTest() {
+        Mockito.when(loanService.getLateLoans("", 0l, 2))
+                .thenReturn(Arrays.asList(new LateLoanRow(1l, "a@email.com"), new LateLoanRow(4l, "a@email.com")));
+        Mockito.when(loanService.getLateLoans("a@email.com", 4l, 2))
+                .thenReturn(Arrays.asList(new LateLoanRow(6l, "a@email.com"), new LateLoanRow(3l, "b@email.com")));
+        Mockito.when(loanService.getLateLoans("b@email.com", 3l, 2))
+                .thenReturn(Collections.singletonList(new LateLoanRow(5l, "b@email.com")));
+
+        scheduleService.sendMailToLateLoans();
+
+        Mockito.verify(emailService).sendMails(Collections.singletonList("a@email.com"), "late");
+        Mockito.verify(emailService).sendMails(Collections.singletonList("b@email.com"), "late");
+        Mockito.verifyNoMoreInteractions(emailService);
+        Assertions.assertThat(meterRegistry.counter("library.late-loans.processed").count()).isEqualTo(5);
+    }
+}